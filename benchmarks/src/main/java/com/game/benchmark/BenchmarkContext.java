@@ -0,0 +1,95 @@
+package com.game.benchmark;
+
+import com.game.config.AppConfig;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerChangeListener;
+import com.game.service.PlayerServiceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Boots the application, by default on the embedded H2 {@code dev} profile, and generates deterministic players.
+ */
+public final class BenchmarkContext {
+    private static final int INSERT_CHUNK = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    public static AnnotationConfigWebApplicationContext start() {
+        return start("dev");
+    }
+
+    /**
+     * @param profile {@code dev} for H2, {@code prod} for the MySQL database given by the {@code db.*} properties,
+     *                which can be overridden with system properties
+     */
+    public static AnnotationConfigWebApplicationContext start(String profile) {
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().setActiveProfiles(profile);
+        context.register(AppConfig.class, WebConfig.class);
+        context.refresh();
+        return context;
+    }
+
+    public static void seed(AnnotationConfigWebApplicationContext context, int count) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("DELETE FROM player");
+
+        Random random = new Random(42);
+        for (int from = 0; from < count; from += INSERT_CHUNK) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = from; i < Math.min(count, from + INSERT_CHUNK); i++) {
+                Player player = randomPlayer(random, i);
+                rows.add(new Object[]{player.getName(), player.getTitle(), player.getRace().name(),
+                        player.getProfession().name(), player.getBirthday(), player.getBanned(),
+                        player.getExperience(), player.getLevel(), player.getUntilNextLevel()});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        }
+        // the in-memory indexes were built from the rows that were just replaced
+        context.getBeansOfType(PlayerChangeListener.class).values().forEach(PlayerChangeListener::reload);
+    }
+
+    public static List<Player> players(int count) {
+        Random random = new Random(42);
+        List<Player> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Player player = randomPlayer(random, i);
+            player.setId((long) i + 1);
+            players.add(player);
+        }
+        return players;
+    }
+
+    static Player randomPlayer(Random random, int index) {
+        Calendar birthday = new GregorianCalendar(2000 + random.nextInt(20), random.nextInt(12), 1 + random.nextInt(28));
+        int experience = random.nextInt(10_000_001);
+        int level = PlayerServiceImpl.calcLevel(experience);
+
+        Player player = new Player();
+        player.setName("Игрок" + index % 1_000_000);
+        player.setTitle("Титул " + random.nextInt(100_000));
+        player.setRace(Race.values()[random.nextInt(Race.values().length)]);
+        player.setProfession(Profession.values()[random.nextInt(Profession.values().length)]);
+        player.setBirthday(birthday.getTime());
+        player.setBanned(random.nextInt(10) == 0);
+        player.setExperience(experience);
+        player.setLevel(level);
+        player.setUntilNextLevel(PlayerServiceImpl.calcuntilNextLevel(level, experience));
+        return player;
+    }
+}
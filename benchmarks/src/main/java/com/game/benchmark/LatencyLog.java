@@ -0,0 +1,47 @@
+package com.game.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Every recorded latency, kept in full so percentiles are exact. Not thread-safe: each load worker owns its
+ * logs and they are merged once the run is over.
+ */
+final class LatencyLog {
+    private long[] values = new long[1024];
+    private int size;
+    private boolean sorted = true;
+
+    void record(long nanos) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+        sorted = false;
+    }
+
+    void addAll(LatencyLog other) {
+        for (int i = 0; i < other.size; i++) {
+            record(other.values[i]);
+        }
+    }
+
+    int count() {
+        return size;
+    }
+
+    long percentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(values, 0, size);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return values[Math.max(0, Math.min(size, rank) - 1)];
+    }
+
+    long max() {
+        return percentile(100);
+    }
+}
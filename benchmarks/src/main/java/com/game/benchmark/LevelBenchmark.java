@@ -0,0 +1,43 @@
+package com.game.benchmark;
+
+import com.game.service.PlayerServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelBenchmark {
+    private final int[] experience = new int[1024];
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < experience.length; i++) {
+            experience[i] = random.nextInt(10_000_001);
+        }
+    }
+
+    @Benchmark
+    public int calcLevel() {
+        return PlayerServiceImpl.calcLevel(nextExperience());
+    }
+
+    @Benchmark
+    public int calcLevelAndUntilNextLevel() {
+        int exp = nextExperience();
+        int level = PlayerServiceImpl.calcLevel(exp);
+        return PlayerServiceImpl.calcuntilNextLevel(level, exp);
+    }
+
+    private int nextExperience() {
+        cursor = (cursor + 1) & (experience.length - 1);
+        return experience[cursor];
+    }
+}
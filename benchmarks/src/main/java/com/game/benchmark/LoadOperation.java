@@ -0,0 +1,93 @@
+package com.game.benchmark;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.Random;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * The calls of the player API replayed by {@link LoadTest}, with the share each gets unless {@code --mix}
+ * says otherwise. Reads dominate, as they do for a game client.
+ */
+enum LoadOperation {
+    LIST(30) {
+        @Override
+        RequestBuilder request(LoadTest.Ids ids, Random random) {
+            StringBuilder url = new StringBuilder("/rest/players?pageSize=20&pageNumber=").append(random.nextInt(5));
+            if (random.nextBoolean()) {
+                url.append("&race=").append(Race.values()[random.nextInt(Race.values().length)]);
+            }
+            if (random.nextInt(3) == 0) {
+                url.append("&profession=").append(Profession.values()[random.nextInt(Profession.values().length)]);
+            }
+            if (random.nextInt(4) == 0) {
+                url.append("&minLevel=").append(random.nextInt(30));
+            }
+            if (random.nextInt(4) == 0) {
+                url.append("&order=LEVEL");
+            }
+            return get(url.toString());
+        }
+    },
+    COUNT(10) {
+        @Override
+        RequestBuilder request(LoadTest.Ids ids, Random random) {
+            String url = "/rest/players/count";
+            if (random.nextBoolean()) {
+                url += "?race=" + Race.values()[random.nextInt(Race.values().length)] + "&banned=false";
+            }
+            return get(url);
+        }
+    },
+    GET(40) {
+        @Override
+        RequestBuilder request(LoadTest.Ids ids, Random random) {
+            return get("/rest/players/" + ids.random(random));
+        }
+    },
+    CREATE(5) {
+        @Override
+        RequestBuilder request(LoadTest.Ids ids, Random random) {
+            Player player = BenchmarkContext.randomPlayer(random, random.nextInt(1_000_000));
+            return post("/rest/players")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(String.format("{\"name\": \"%s\", \"title\": \"%s\", \"race\": \"%s\", \"profession\": \"%s\", " +
+                                    "\"birthday\": %d, \"banned\": %b, \"experience\": %d}",
+                            player.getName(), player.getTitle(), player.getRace(), player.getProfession(),
+                            player.getBirthday().getTime(), player.getBanned(), player.getExperience()));
+        }
+    },
+    UPDATE(10) {
+        @Override
+        RequestBuilder request(LoadTest.Ids ids, Random random) {
+            return post("/rest/players/" + ids.random(random))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"experience\": " + random.nextInt(10_000_001) + "}");
+        }
+    },
+    DELETE(5) {
+        @Override
+        RequestBuilder request(LoadTest.Ids ids, Random random) {
+            return delete("/rest/players/" + ids.random(random));
+        }
+    };
+
+    private final int defaultWeight;
+
+    LoadOperation(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    abstract RequestBuilder request(LoadTest.Ids ids, Random random);
+}
@@ -0,0 +1,333 @@
+package com.game.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+/**
+ * Boots the application in-process, seeds players and replays a weighted mix of player API calls through the
+ * dispatcher servlet, then prints throughput and latency percentiles per call.
+ * <p>
+ * With {@code --rate} the load is open-loop: every worker has a fixed schedule of intended start times and the
+ * latency of a call is measured from its intended start, so time spent queueing behind a slow call is counted
+ * instead of silently omitted. Calls a worker could not even start before the end are reported as missed and
+ * counted in the latencies as waiting from their intended start to the end of the run. Each worker keeps its own
+ * schedule, so a call stuck in one worker delays only that worker's calls: this is not a single arrival queue
+ * shared by all workers, and with a few stalled workers the others keep the rate up.
+ * Without a rate each worker sends its next call as soon as the previous one returns, which finds the ceiling.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.game.benchmark.LoadTest \
+ *     --players 100000 --rate 2000 --concurrency 32 --duration 60 --warmup 10 \
+ *     --mix get=40,list=30,count=10,update=10,create=5,delete=5
+ * </pre>
+ * {@code --profile prod} runs against the MySQL database of the {@code db.*} properties, which can be set with
+ * {@code -D}. Seeding replaces the player table, so there it only happens with {@code --reset true}; without it
+ * the run uses the rows already in the table.
+ */
+public class LoadTest {
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final MockMvc mockMvc;
+    private final Ids ids;
+    private final LoadOperation[] mix;
+    private final double rate;
+    private final int concurrency;
+
+    private LoadTest(MockMvc mockMvc, Ids ids, LoadOperation[] mix, double rate, int concurrency) {
+        this.mockMvc = mockMvc;
+        this.ids = ids;
+        this.mix = mix;
+        this.rate = rate;
+        this.concurrency = concurrency;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String profile = options.getOrDefault("profile", "dev");
+        // the embedded H2 database starts empty, any other one is only wiped on request
+        boolean reset = Boolean.parseBoolean(options.getOrDefault("reset", String.valueOf("dev".equals(profile))));
+        int players = Integer.parseInt(options.getOrDefault("players", reset ? "10000" : "0"));
+        if (players > 0 && !reset) {
+            throw new IllegalArgumentException("Seeding deletes every player, add --reset true to seed " + players);
+        }
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "10"));
+        LoadOperation[] mix = parseMix(options.get("mix"));
+
+        AnnotationConfigWebApplicationContext context = BenchmarkContext.start(profile);
+        try {
+            if (players > 0) {
+                BenchmarkContext.seed(context, players);
+            }
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+            Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM player", Long.class);
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM player", Long.class);
+            if (minId == null) {
+                throw new IllegalStateException("The player table is empty, seed it with --players and --reset true");
+            }
+            players = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player", Integer.class);
+
+            MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+            LoadTest test = new LoadTest(mockMvc, new Ids(minId, maxId), mix, rate, concurrency);
+            Result result = test.run(TimeUnit.SECONDS.toNanos(warmup), TimeUnit.SECONDS.toNanos(duration));
+
+            System.out.printf("profile %s, %d players, %s, concurrency %d, %d s measured after %d s warmup%n",
+                    profile, players, rate > 0 ? "open loop at " + rate + "/s" : "closed loop", concurrency, duration, warmup);
+            if (rate > 0) {
+                System.out.println("each worker keeps its own schedule, calls queue per worker, not in one arrival queue");
+            }
+            result.print(System.out, duration);
+        } finally {
+            context.close();
+        }
+    }
+
+    private Result run(long warmupNanos, long durationNanos) throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(i, start, measureFrom, end);
+            Thread thread = new Thread(worker, "load-" + i);
+            workers.add(worker);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Result result = new Result();
+        workers.forEach(worker -> result.addAll(worker.result));
+        return result;
+    }
+
+    private int perform(LoadOperation operation, Random random) {
+        try {
+            MvcResult result = mockMvc.perform(operation.request(ids, random)).andReturn();
+            if (result.getRequest().isAsyncStarted()) {
+                result = mockMvc.perform(asyncDispatch(result)).andReturn();
+            }
+            int status = result.getResponse().getStatus();
+            if (operation == LoadOperation.CREATE && status == 200) {
+                Matcher matcher = ID.matcher(result.getResponse().getContentAsString());
+                if (matcher.find()) {
+                    ids.created(Long.parseLong(matcher.group(1)));
+                }
+            }
+            return status;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final Random random;
+        private final long start;
+        private final long measureFrom;
+        private final long end;
+        private final Result result = new Result();
+
+        Worker(int index, long start, long measureFrom, long end) {
+            this.random = new Random(index);
+            // workers are staggered, so together they send evenly spaced calls at the full rate
+            long interval = interval();
+            this.start = start + (interval == 0 ? 0 : interval * index / concurrency);
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        private long interval() {
+            return rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * concurrency / rate) : 0;
+        }
+
+        @Override
+        public void run() {
+            long interval = interval();
+            long intended = start;
+            while (intended < end) {
+                long now = System.nanoTime();
+                if (now >= end) {
+                    for (long missed = intended; interval > 0 && missed < end; missed += interval) {
+                        if (missed >= measureFrom) {
+                            result.missed.response.record(end - missed);
+                        }
+                    }
+                    break;
+                }
+                if (now < intended) {
+                    LockSupport.parkNanos(intended - now);
+                    continue;
+                }
+
+                LoadOperation operation = mix[random.nextInt(mix.length)];
+                long begin = System.nanoTime();
+                int status = perform(operation, random);
+                long done = System.nanoTime();
+
+                if (interval == 0) {
+                    intended = begin;
+                }
+                if (intended >= measureFrom) {
+                    result.record(operation, status, done - intended, done - begin);
+                }
+                intended = interval == 0 ? done : intended + interval;
+            }
+        }
+    }
+
+    private static class Result {
+        private final Map<LoadOperation, Stats> byOperation = new EnumMap<>(LoadOperation.class);
+        private final Stats missed = new Stats();
+
+        void record(LoadOperation operation, int status, long responseNanos, long serviceNanos) {
+            Stats stats = byOperation.computeIfAbsent(operation, key -> new Stats());
+            stats.response.record(responseNanos);
+            stats.service.record(serviceNanos);
+            if (status < 200 || status >= 400) {
+                stats.errors.merge(status, 1L, Long::sum);
+            }
+        }
+
+        void addAll(Result other) {
+            other.byOperation.forEach((operation, stats) -> {
+                Stats total = byOperation.computeIfAbsent(operation, key -> new Stats());
+                total.response.addAll(stats.response);
+                total.service.addAll(stats.service);
+                stats.errors.forEach((status, count) -> total.errors.merge(status, count, Long::sum));
+            });
+            missed.response.addAll(other.missed.response);
+        }
+
+        void print(PrintStream out, long seconds) {
+            out.printf("%-8s %9s %9s %9s %9s %9s %9s %9s | %11s %11s  %s%n", "call", "requests", "req/s",
+                    "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p50 ms", "svc p99 ms", "errors");
+            Stats all = new Stats();
+            byOperation.forEach((operation, stats) -> {
+                print(out, operation.name().toLowerCase(), stats, seconds);
+                all.response.addAll(stats.response);
+                all.service.addAll(stats.service);
+                stats.errors.forEach((status, count) -> all.errors.merge(status, count, Long::sum));
+            });
+            if (missed.response.count() > 0) {
+                print(out, "missed", missed, seconds);
+                all.response.addAll(missed.response);
+            }
+            print(out, "all", all, seconds);
+            if (missed.response.count() > 0) {
+                out.printf("%d scheduled calls could not be started before the end: the target rate is above capacity%n",
+                        missed.response.count());
+            }
+        }
+
+        private static void print(PrintStream out, String name, Stats stats, long seconds) {
+            LatencyLog response = stats.response;
+            out.printf("%-8s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f | %11s %11s  %s%n", name, response.count(),
+                    (double) response.count() / seconds,
+                    millis(response.percentile(50)), millis(response.percentile(90)), millis(response.percentile(99)),
+                    millis(response.percentile(99.9)), millis(response.max()),
+                    serviceMillis(stats.service, 50), serviceMillis(stats.service, 99),
+                    stats.errors.isEmpty() ? "-" : stats.errors.toString());
+        }
+
+        // missed calls never reached the service
+        private static String serviceMillis(LatencyLog service, double percentile) {
+            return service.count() == 0 ? "-" : String.format("%.2f", millis(service.percentile(percentile)));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    private static class Stats {
+        final LatencyLog response = new LatencyLog();
+        final LatencyLog service = new LatencyLog();
+        final Map<Integer, Long> errors = new TreeMap<>();
+    }
+
+    /**
+     * Ids that calls pick from: the seeded range plus players created during the run. Deleted ids stay in the
+     * range, calls on them count as 404.
+     */
+    static class Ids {
+        private final long min;
+        private final AtomicLong max;
+
+        Ids(long min, long max) {
+            this.min = min;
+            this.max = new AtomicLong(max);
+        }
+
+        long random(Random random) {
+            return min + (long) (random.nextDouble() * (max.get() - min + 1));
+        }
+
+        void created(long id) {
+            max.accumulateAndGet(id, Math::max);
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    /**
+     * @return the operations repeated by weight, so picking a uniform element follows the mix
+     */
+    private static LoadOperation[] parseMix(String mix) {
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        if (mix == null) {
+            for (LoadOperation operation : LoadOperation.values()) {
+                weights.put(operation, operation.getDefaultWeight());
+            }
+        } else {
+            for (String part : mix.split(",")) {
+                String[] pair = part.trim().split("=");
+                weights.put(LoadOperation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+            }
+        }
+
+        List<LoadOperation> operations = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no calls with a positive weight");
+        }
+        return operations.toArray(new LoadOperation[0]);
+    }
+}
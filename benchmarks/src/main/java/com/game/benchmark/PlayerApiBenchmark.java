@@ -0,0 +1,104 @@
+package com.game.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * End-to-end calls through the dispatcher servlet against the embedded H2 {@code dev} profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class PlayerApiBenchmark {
+    private AnnotationConfigWebApplicationContext context;
+    private MockMvc mockMvc;
+    private long minId;
+    private long maxId;
+
+    @Param({"10000", "100000", "1000000"})
+    public int players;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, players);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM player", Long.class);
+        maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM player", Long.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult listFirstPage() throws Exception {
+        return perform(get("/rest/players?pageSize=20"));
+    }
+
+    @Benchmark
+    public MvcResult listFiltered() throws Exception {
+        return perform(get("/rest/players?race=ELF&banned=false&minLevel=10&order=LEVEL&pageSize=20"));
+    }
+
+    @Benchmark
+    public MvcResult listDeepPage() throws Exception {
+        return perform(get("/rest/players?pageSize=20&pageNumber=" + (players / 20 - 1)));
+    }
+
+    @Benchmark
+    public MvcResult countAll() throws Exception {
+        return perform(get("/rest/players/count"));
+    }
+
+    @Benchmark
+    public MvcResult countFiltered() throws Exception {
+        return perform(get("/rest/players/count?race=ELF&banned=false&minLevel=10"));
+    }
+
+    @Benchmark
+    public MvcResult getById() throws Exception {
+        return perform(get("/rest/players/" + randomId()));
+    }
+
+    @Benchmark
+    public MvcResult update() throws Exception {
+        return perform(post("/rest/players/" + randomId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": " + ThreadLocalRandom.current().nextInt(10_000_001) + "}"));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+    }
+
+    private MvcResult perform(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        if (result.getResponse().getStatus() != 200) {
+            throw new IllegalStateException("Unexpected status " + result.getResponse().getStatus());
+        }
+        return result;
+    }
+}
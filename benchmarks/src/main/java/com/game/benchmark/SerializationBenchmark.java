@@ -0,0 +1,46 @@
+package com.game.benchmark;
+
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a player list page through the message converter registered by {@link WebConfig}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    private HttpMessageConverter<Object> converter;
+    private List<Player> players;
+
+    @Param({"3", "20", "1000"})
+    public int pageSize;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        new WebConfig().configureMessageConverters(converters);
+        converter = (HttpMessageConverter<Object>) converters.get(0);
+        players = BenchmarkContext.players(pageSize);
+    }
+
+    @Benchmark
+    public int serializeList() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(players, MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsBytes().length;
+    }
+}
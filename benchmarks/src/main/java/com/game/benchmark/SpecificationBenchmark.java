@@ -0,0 +1,80 @@
+package com.game.benchmark;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The 8-way filter chain built by {@code RestPlayerController.getAllPlayers}, with and without resolving it
+ * to a JPA predicate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecificationBenchmark {
+    private AnnotationConfigWebApplicationContext context;
+    private PlayerService playerService;
+    private CriteriaBuilder criteriaBuilder;
+
+    @Param({"none", "all"})
+    public String filters;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start();
+        playerService = context.getBean(PlayerService.class);
+        criteriaBuilder = context.getBean(EntityManagerFactory.class).getCriteriaBuilder();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Specification<Player> buildChain() {
+        return chain();
+    }
+
+    @Benchmark
+    public Predicate buildAndResolve() {
+        CriteriaQuery<Player> query = criteriaBuilder.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+        return chain().toPredicate(root, query, criteriaBuilder);
+    }
+
+    private Specification<Player> chain() {
+        if ("all".equals(filters)) {
+            return Specification.where(playerService.selectByName("ра")
+                    .and(playerService.selectByTitle("ор"))
+                    .and(playerService.selectByRace(Race.ELF))
+                    .and(playerService.selectByProfession(Profession.WARRIOR))
+                    .and(playerService.selectByDate(946684800000L, 1262304000000L))
+                    .and(playerService.selectByBan(false))
+                    .and(playerService.selectByExp(1000, 500000))
+                    .and(playerService.selectByLevel(5, 60)));
+        }
+        return Specification.where(playerService.selectByName(null)
+                .and(playerService.selectByTitle(null))
+                .and(playerService.selectByRace(null))
+                .and(playerService.selectByProfession(null))
+                .and(playerService.selectByDate(null, null))
+                .and(playerService.selectByBan(null))
+                .and(playerService.selectByExp(null, null))
+                .and(playerService.selectByLevel(null, null)));
+    }
+}
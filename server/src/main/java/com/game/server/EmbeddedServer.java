@@ -0,0 +1,115 @@
+package com.game.server;
+
+import com.game.config.MyWebAppInit;
+import com.game.metrics.StartupMetrics;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.scan.StandardJarScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.SpringServletContainerInitializer;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.servlet.ServletContext;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs the application in an embedded Tomcat, bootstrapped by the same {@link MyWebAppInit} as the WAR.
+ * <pre>
+ * java -jar server/target/server.jar --port 8080 --profile prod --webapp src/main/webapp
+ * </pre>
+ * {@code --profile dev} runs on an in-memory H2 database. {@code --webapp} serves the static resources of that
+ * directory, JSP pages are not supported. The time from the JVM start until the connector accepts requests is
+ * logged and exported as {@code rpg_startup_ready_seconds}.
+ */
+public final class EmbeddedServer {
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedServer.class);
+
+    private final Tomcat tomcat = new Tomcat();
+    private final Context context;
+
+    public EmbeddedServer(int port, String profile, File webapp) throws IOException {
+        File baseDir = Files.createTempDirectory("rpg-tomcat").toFile();
+        baseDir.deleteOnExit();
+        tomcat.setBaseDir(baseDir.getAbsolutePath());
+        tomcat.setPort(port);
+        tomcat.getConnector();
+
+        context = tomcat.addContext("", webapp == null ? baseDir.getAbsolutePath() : webapp.getAbsolutePath());
+        // set before the initializers run, so it wins over the prod default of MyWebAppInit
+        context.addParameter("spring.profiles.active", profile);
+        // the initializer is given directly: there are no JSPs, TLDs or web fragments to look for in the jars
+        StandardJarScanner jarScanner = (StandardJarScanner) context.getJarScanner();
+        jarScanner.setScanClassPath(false);
+        jarScanner.setScanManifest(false);
+        context.addServletContainerInitializer(new SpringServletContainerInitializer(),
+                Collections.singleton(MyWebAppInit.class));
+    }
+
+    public void start() throws LifecycleException {
+        tomcat.start();
+        if (!context.getState().isAvailable()) {
+            throw new IllegalStateException("The application failed to start, see the log above");
+        }
+        ServletContext servletContext = context.getServletContext();
+        for (String name : Collections.list(servletContext.getAttributeNames())) {
+            Object attribute = servletContext.getAttribute(name);
+            if (attribute instanceof WebApplicationContext) {
+                ((WebApplicationContext) attribute).getBean(StartupMetrics.class).serverStarted();
+            }
+        }
+    }
+
+    public int getPort() {
+        return tomcat.getConnector().getLocalPort();
+    }
+
+    public void stop() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int port = Integer.parseInt(options.getOrDefault("port", System.getProperty("server.port", "8080")));
+        String profile = options.getOrDefault("profile", "prod");
+        File webapp = options.containsKey("webapp") ? new File(options.get("webapp")) : null;
+
+        EmbeddedServer server = new EmbeddedServer(port, profile, webapp);
+        try {
+            server.start();
+        } catch (IllegalStateException e) {
+            server.stop();
+            throw e;
+        }
+        log.info("Started on port {} with profile {} in {} ms after the JVM start", server.getPort(), profile,
+                ManagementFactory.getRuntimeMXBean().getUptime());
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.stop();
+            } catch (LifecycleException e) {
+                log.warn("Failed to stop the server", e);
+            }
+        }, "shutdown"));
+        server.tomcat.getServer().await();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
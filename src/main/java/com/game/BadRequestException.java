@@ -5,4 +5,14 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ResponseStatus(code = HttpStatus.BAD_REQUEST)
 public class BadRequestException extends RuntimeException{
+
+    public BadRequestException() {
+    }
+
+    /**
+     * @param message the rule the request broke, reported in bulk and import results
+     */
+    public BadRequestException(String message) {
+        super(message);
+    }
 }
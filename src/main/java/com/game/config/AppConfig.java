@@ -1,58 +1,163 @@
 package com.game.config;
 
+import com.game.entity.Player;
+import com.game.metrics.PoolMetrics;
+import com.game.metrics.SlowQueryLog;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
 
 @Configuration
 @EnableTransactionManagement
-@ComponentScan("com.game")
+// controllers belong to the servlet context, see WebConfig
+@ComponentScan({"com.game.service", "com.game.metrics"})
 @EnableJpaRepositories(basePackages = "com.game.repository")
+@PropertySource("classpath:application.properties")
 public class AppConfig {
+    private Environment env;
+
+    @Autowired
+    public void setEnv(Environment env) {
+        this.env = env;
+    }
 
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, CaffeineRegionFactory regionFactory) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource());
-        em.setPackagesToScan("com.game.entity");
+        em.setDataSource(dataSource);
+        // entities are listed instead of scanned for; the empty package list still makes a default unit,
+        // which then has no root to scan either
+        em.setPackagesToScan();
+        em.setPersistenceUnitRootLocation(null);
+        em.setPersistenceUnitPostProcessors(unit -> unit.addManagedClassName(Player.class.getName()));
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(additionalProperties());
+        em.getJpaPropertyMap().put(AvailableSettings.CACHE_REGION_FACTORY, regionFactory);
 
         return em;
     }
 
-    @Profile("prod")
+    /**
+     * Regions of the second-level and query cache, only used when {@code db.cache.enabled} is on.
+     */
+    @Bean
+    public CaffeineRegionFactory cacheRegionFactory() {
+        return new CaffeineRegionFactory(env);
+    }
+
+    /**
+     * The data source everything uses: connections for read-only transactions go to the replica, the rest to
+     * the primary. Without a replica both routes lead to the primary, and so do they with {@code db.cache.enabled}:
+     * Hibernate would cache results of a lagging replica as current until the next write. Statements of filtered
+     * player queries are timed by {@link SlowQueryLog}.
+     */
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/rpg?serverTimezone=UTC&characterEncoding=UTF-8");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") Optional<DataSource> replica,
+                                 SlowQueryLog slowQueryLog) {
+        // the transaction manager takes a connection before the transaction's read-only flag is bound,
+        // so the real connection, and with it the route, is only chosen at the first statement
+        DataSource reads = env.getProperty("db.cache.enabled", Boolean.class, false) ? primary : replica.orElse(primary);
+        return new LazyConnectionDataSourceProxy(slowQueryLog.wrap(new ReadWriteRoutingDataSource(primary, reads)));
+    }
+
+    @Profile("prod")
+    @Bean(destroyMethod = "close")
+    public HikariDataSource primaryDataSource(PoolMetrics poolMetrics) {
+        HikariConfig config = poolConfig();
+        config.setPoolName(env.getProperty("db.pool.name", "rpg"));
+        config.setJdbcUrl(env.getRequiredProperty("db.url"));
+        config.setUsername(env.getRequiredProperty("db.username"));
+        config.setPassword(env.getRequiredProperty("db.password"));
+        config.setMetricsTrackerFactory(poolMetrics);
+        HikariDataSource dataSource = new HikariDataSource(config);
+
+        if (env.getProperty("db.migrate", Boolean.class, true)) {
+            // databases created by init.sql have no history table yet, they are baselined below V1
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations("classpath:db/migration")
+                    .baselineOnMigrate(true)
+                    .baselineVersion("0")
+                    .load()
+                    .migrate();
+        }
         return dataSource;
     }
 
+    @Profile("prod")
+    @Bean(destroyMethod = "close")
+    @Conditional(ReplicaConfiguredCondition.class)
+    public HikariDataSource replicaDataSource() {
+        HikariConfig config = poolConfig();
+        config.setPoolName(env.getProperty("db.pool.name", "rpg") + "-replica");
+        config.setJdbcUrl(env.getRequiredProperty("db.replica.url"));
+        config.setUsername(env.getProperty("db.replica.username", env.getRequiredProperty("db.username")));
+        config.setPassword(env.getProperty("db.replica.password", env.getRequiredProperty("db.password")));
+        config.setReadOnly(true);
+        return new HikariDataSource(config);
+    }
+
+    private HikariConfig poolConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName(env.getRequiredProperty("db.driver"));
+
+        config.setMinimumIdle(env.getProperty("db.pool.minIdle", Integer.class, 4));
+        config.setMaximumPoolSize(env.getProperty("db.pool.maxSize", Integer.class, 16));
+        config.setConnectionTimeout(env.getProperty("db.pool.connectionTimeoutMs", Long.class, 3000L));
+        config.setIdleTimeout(env.getProperty("db.pool.idleTimeoutMs", Long.class, 300000L));
+        config.setMaxLifetime(env.getProperty("db.pool.maxLifetimeMs", Long.class, 1800000L));
+        config.setValidationTimeout(env.getProperty("db.pool.validationTimeoutMs", Long.class, 1000L));
+
+        // server-side statement cache of Connector/J, kept per pooled connection
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", env.getProperty("db.pool.statementCacheSize", "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", env.getProperty("db.pool.statementCacheSqlLimit", "2048"));
+        // lets Connector/J send a JDBC batch as multi-row statements instead of one round trip per row
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        // statements with a fetch size read through a server-side cursor instead of buffering the whole result
+        config.addDataSourceProperty("useCursorFetch", "true");
+
+        config.setRegisterMbeans(true);
+        return config;
+    }
+
     @Profile("dev")
-    @Bean(name = "dataSource")
+    @Bean(name = "primaryDataSource")
     public DataSource dataSourceForTests() {
 
         return new EmbeddedDatabaseBuilder()
@@ -64,6 +169,25 @@ public class AppConfig {
                 .build();
     }
 
+    /**
+     * Runs the controllers' database work. As many threads as pooled connections, so tasks never wait for a
+     * connection; a short queue absorbs bursts and anything beyond it is rejected.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor dbExecutor() {
+        int threads = env.getProperty("db.executor.threads", Integer.class,
+                env.getProperty("db.pool.maxSize", Integer.class, 16));
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("db-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(env.getProperty("db.executor.queueSize", Integer.class, 64));
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -80,6 +204,16 @@ public class AppConfig {
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.jdbc.batch_size", env.getProperty("db.batchSize", "100"));
+        properties.setProperty("hibernate.order_updates", "true");
+        properties.setProperty("hibernate.order_inserts", "true");
+        // counters only: the per-session summary Hibernate would log with them stays off
+        properties.setProperty("hibernate.generate_statistics", env.getProperty("db.hibernate.statistics", "true"));
+        properties.setProperty("hibernate.session.events.log", "false");
+        // players by id and the results of filtered player queries, see Player and PlayerRepository
+        String cacheEnabled = env.getProperty("db.cache.enabled", "false");
+        properties.setProperty("hibernate.cache.use_second_level_cache", cacheEnabled);
+        properties.setProperty("hibernate.cache.use_query_cache", cacheEnabled);
 
         return properties;
     }
@@ -0,0 +1,134 @@
+package com.game.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate's second-level and query cache regions kept in local Caffeine caches. A region is bounded by
+ * {@code db.cache.<region>.maxSize} and its entries expire {@code db.cache.<region>.ttlSeconds} after they were
+ * written, both falling back to {@code db.cache.maxSize} and {@code db.cache.ttlSeconds}.
+ * <p>
+ * The update timestamps region is never bounded: a lost timestamp would make stale query results look current.
+ */
+public class CaffeineRegionFactory extends RegionFactoryTemplate {
+    private final Environment env;
+    private final Map<String, Cache<Object, Object>> regions = new ConcurrentSkipListMap<>();
+
+    public CaffeineRegionFactory(Environment env) {
+        this.env = env;
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regions.values().forEach(Cache::invalidateAll);
+        regions.clear();
+    }
+
+    @Override
+    public AccessType getDefaultAccessType() {
+        return AccessType.READ_WRITE;
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return storage(regionConfig.getRegionName(), true);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return storage(regionName, true);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return storage(regionName, false);
+    }
+
+    /**
+     * @return entries and evictions by region name, in name order
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        regions.forEach((name, cache) -> {
+            Map<String, Long> region = new LinkedHashMap<>();
+            region.put("size", cache.estimatedSize());
+            region.put("evictions", cache.stats().evictionCount());
+            result.put(name, region);
+        });
+        return result;
+    }
+
+    private CaffeineStorageAccess storage(String regionName, boolean bounded) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (bounded) {
+            builder.maximumSize(setting(regionName, "maxSize", 10000L))
+                    .expireAfterWrite(setting(regionName, "ttlSeconds", 300L), TimeUnit.SECONDS);
+        }
+        Cache<Object, Object> cache = builder.build();
+        regions.put(regionName, cache);
+        return new CaffeineStorageAccess(cache);
+    }
+
+    private long setting(String regionName, String name, long defaultValue) {
+        return env.getProperty("db.cache." + regionName + "." + name, Long.class,
+                env.getProperty("db.cache." + name, Long.class, defaultValue));
+    }
+
+    private static class CaffeineStorageAccess implements DomainDataStorageAccess {
+        private final Cache<Object, Object> cache;
+
+        CaffeineStorageAccess(Cache<Object, Object> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return cache.getIfPresent(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return cache.asMap().containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void release() {
+            cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.game.config;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.StringUtils;
+
+/**
+ * Matches when {@code db.replica.url} is set, so the replica pool is only opened when there is a replica.
+ */
+class ReplicaConfiguredCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        return StringUtils.hasText(context.getEnvironment().getProperty("db.replica.url"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.game.controller;
+
+import com.game.entity.Player;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Validators of player responses. A player's ETag is its id and version, a list's ETag is a digest of the
+ * ids and versions it contains plus the page metadata, so any change of a listed player changes it.
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    static String etag(Player player) {
+        return "\"" + player.getId() + "." + player.getVersion() + "\"";
+    }
+
+    static String etag(List<Player> players, Object... metadata) {
+        StringBuilder state = new StringBuilder();
+        for (Object value : metadata) {
+            state.append(value).append(';');
+        }
+        for (Player player : players) {
+            state.append(player.getId()).append(':').append(player.getVersion()).append(';');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    static boolean isConditional(HttpHeaders request) {
+        return request.containsKey(HttpHeaders.IF_NONE_MATCH) || request.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    /**
+     * If-None-Match takes precedence; If-Modified-Since is only looked at without it and only when the
+     * modification time is known.
+     */
+    static boolean isNotModified(HttpHeaders request, String etag, Long lastModified) {
+        if (request.containsKey(HttpHeaders.IF_NONE_MATCH)) {
+            for (String candidate : request.getIfNoneMatch()) {
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if ("*".equals(candidate) || etag.equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (lastModified == null) {
+            return false;
+        }
+        long since;
+        try {
+            since = request.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTP dates have a resolution of one second
+        return since >= 0 && lastModified / 1000 <= since / 1000;
+    }
+
+    static HttpHeaders validators(String etag, Long lastModified) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        if (lastModified != null) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl(CacheControl.noCache());
+        return headers;
+    }
+}
@@ -0,0 +1,13 @@
+package com.game.controller;
+
+public class ExperienceDelta {
+    private Integer delta;              // Прибавка к опыту, может быть отрицательной
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+}
@@ -0,0 +1,68 @@
+package com.game.controller;
+
+import com.game.BadRequestException;
+import com.game.NotFoundException;
+import com.game.service.Leaderboard;
+import com.game.service.LeaderboardEntry;
+import com.game.service.PlayerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/rest/leaderboard")
+public class LeaderboardController {
+    private Leaderboard leaderboard;
+    private PlayerService playerService;
+
+    @Value("${leaderboard.maxLimit:100}")
+    private int maxLimit;
+
+    @Autowired
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    @Autowired
+    public void setPlayerService(PlayerService playerService) {
+        this.playerService = playerService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<LeaderboardEntry>> getTop(@RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new BadRequestException();
+        }
+        return new ResponseEntity<>(leaderboard.top(limit), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<LeaderboardEntry> getRank(@PathVariable String id) {
+        LeaderboardEntry entry = leaderboard.rank(playerService.checkId(id));
+        if (entry == null) {
+            throw new NotFoundException();
+        }
+        return new ResponseEntity<>(entry, HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/around")
+    public ResponseEntity<List<LeaderboardEntry>> getAround(@PathVariable String id,
+                                                            @RequestParam(value = "window", required = false, defaultValue = "5") Integer window) {
+        if (window < 0 || window > maxLimit) {
+            throw new BadRequestException();
+        }
+        List<LeaderboardEntry> entries = leaderboard.around(playerService.checkId(id), window);
+        if (entries == null) {
+            throw new NotFoundException();
+        }
+        return new ResponseEntity<>(entries, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,257 @@
+package com.game.controller;
+
+import com.game.metrics.HibernateMetrics;
+import com.game.metrics.Histogram;
+import com.game.metrics.MethodMetrics;
+import com.game.metrics.PoolMetrics;
+import com.game.metrics.PrometheusText;
+import com.game.metrics.RequestMetrics;
+import com.game.metrics.SlowQueryLog;
+import com.game.metrics.StartupMetrics;
+import com.game.service.ExperienceWriteBehind;
+import com.game.service.PlayerCache;
+import com.game.service.PlayerCountCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping(value = "/rest/metrics")
+public class MetricsController {
+    private PoolMetrics poolMetrics;
+    private PlayerCache playerCache;
+    private PlayerCountCache playerCountCache;
+    private ExperienceWriteBehind experienceWriteBehind;
+    private RequestMetrics requestMetrics;
+    private MethodMetrics methodMetrics;
+    private HibernateMetrics hibernateMetrics;
+    private SlowQueryLog slowQueryLog;
+    private StartupMetrics startupMetrics;
+    private ThreadPoolTaskExecutor dbExecutor;
+
+    @Autowired
+    public void setPoolMetrics(PoolMetrics poolMetrics) {
+        this.poolMetrics = poolMetrics;
+    }
+
+    @Autowired
+    public void setPlayerCache(PlayerCache playerCache) {
+        this.playerCache = playerCache;
+    }
+
+    @Autowired
+    public void setPlayerCountCache(PlayerCountCache playerCountCache) {
+        this.playerCountCache = playerCountCache;
+    }
+
+    @Autowired
+    public void setExperienceWriteBehind(ExperienceWriteBehind experienceWriteBehind) {
+        this.experienceWriteBehind = experienceWriteBehind;
+    }
+
+    @Autowired
+    public void setRequestMetrics(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    @Autowired
+    public void setMethodMetrics(MethodMetrics methodMetrics) {
+        this.methodMetrics = methodMetrics;
+    }
+
+    @Autowired
+    public void setHibernateMetrics(HibernateMetrics hibernateMetrics) {
+        this.hibernateMetrics = hibernateMetrics;
+    }
+
+    @Autowired
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Autowired
+    public void setStartupMetrics(StartupMetrics startupMetrics) {
+        this.startupMetrics = startupMetrics;
+    }
+
+    @Autowired
+    public void setDbExecutor(@Qualifier("dbExecutor") ThreadPoolTaskExecutor dbExecutor) {
+        this.dbExecutor = dbExecutor;
+    }
+
+    @GetMapping("/pool")
+    public ResponseEntity<Map<String, Object>> getPoolMetrics() {
+        return new ResponseEntity<>(poolMetrics.snapshot(), HttpStatus.OK);
+    }
+
+    @GetMapping("/cache/players")
+    public ResponseEntity<Map<String, Object>> getPlayerCacheMetrics() {
+        return new ResponseEntity<>(playerCache.snapshot(), HttpStatus.OK);
+    }
+
+    @GetMapping("/cache/counts")
+    public ResponseEntity<Map<String, Object>> getPlayerCountCacheMetrics() {
+        return new ResponseEntity<>(playerCountCache.snapshot(), HttpStatus.OK);
+    }
+
+    @GetMapping("/experience")
+    public ResponseEntity<Map<String, Object>> getExperienceWriteBehindMetrics() {
+        return new ResponseEntity<>(experienceWriteBehind.snapshot(), HttpStatus.OK);
+    }
+
+    @GetMapping("/requests")
+    public ResponseEntity<Map<String, Object>> getRequestMetrics() {
+        return new ResponseEntity<>(requestMetrics.snapshot(), HttpStatus.OK);
+    }
+
+    @GetMapping("/service")
+    public ResponseEntity<Map<String, Object>> getServiceMetrics() {
+        return new ResponseEntity<>(methodMetrics.snapshot(), HttpStatus.OK);
+    }
+
+    @GetMapping("/hibernate")
+    public ResponseEntity<Map<String, Object>> getHibernateMetrics() {
+        return new ResponseEntity<>(hibernateMetrics.snapshot(), HttpStatus.OK);
+    }
+
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Object>> getStartupMetrics() {
+        return new ResponseEntity<>(startupMetrics.snapshot(), HttpStatus.OK);
+    }
+
+    /**
+     * Query shapes of the filtered player endpoints by total statement time, the first candidates for an index.
+     */
+    @GetMapping("/queries")
+    public ResponseEntity<List<Map<String, Object>>> getQueryShapes(@RequestParam(value = "limit", required = false, defaultValue = "20") int limit) {
+        return new ResponseEntity<>(slowQueryLog.top(limit), HttpStatus.OK);
+    }
+
+    /**
+     * Everything above in the Prometheus text format. Latencies are histograms in seconds, so percentiles are
+     * computed on the Prometheus side and can be aggregated across instances.
+     */
+    @GetMapping("/prometheus")
+    public void getPrometheusMetrics(HttpServletResponse response) throws IOException {
+        PrometheusText text = new PrometheusText();
+        writeRequests(text);
+        writeService(text);
+        writeHibernate(text);
+        writeQueryShapes(text);
+        writePool(text);
+        writeCaches(text);
+        writeStartup(text);
+
+        response.setContentType(PrometheusText.CONTENT_TYPE);
+        response.getWriter().write(text.toString());
+    }
+
+    private void writeRequests(PrometheusText text) {
+        Map<String, RequestMetrics.Endpoint> endpoints = requestMetrics.getEndpoints();
+        text.family("rpg_http_request_duration_seconds", "histogram", "Request latency by endpoint.");
+        endpoints.forEach((key, endpoint) -> text.histogram("rpg_http_request_duration_seconds", endpoint.getLatency(), "endpoint", key));
+        text.family("rpg_http_request_errors_total", "counter", "Error responses by endpoint and status.");
+        endpoints.forEach((key, endpoint) -> endpoint.getErrors().forEach((status, count) ->
+                text.sample("rpg_http_request_errors_total", count, "endpoint", key, "status", String.valueOf(status))));
+    }
+
+    private void writeService(PrometheusText text) {
+        Map<String, MethodMetrics.Timer> timers = methodMetrics.getTimers();
+        text.family("rpg_service_duration_seconds", "histogram", "Service call latency by method, including the transaction.");
+        timers.forEach((method, timer) -> text.histogram("rpg_service_duration_seconds", timer.getLatency(), "method", method));
+        text.family("rpg_service_errors_total", "counter", "Service calls that threw, by method.");
+        timers.forEach((method, timer) -> text.sample("rpg_service_errors_total", timer.getErrors(), "method", method));
+    }
+
+    private void writeHibernate(PrometheusText text) {
+        if (!hibernateMetrics.isEnabled()) {
+            return;
+        }
+        text.family("rpg_hibernate_events_total", "counter", "Hibernate statistics counters.");
+        hibernateMetrics.counters().forEach((event, count) -> text.sample("rpg_hibernate_events_total", count, "event", event));
+        text.family("rpg_hibernate_query_max_seconds", "gauge", "Slowest query execution seen.");
+        text.sample("rpg_hibernate_query_max_seconds", hibernateMetrics.getQueryExecutionMaxMillis() / 1e3);
+
+        Map<String, Map<String, Long>> regions = hibernateMetrics.regions();
+        if (regions.isEmpty()) {
+            return;
+        }
+        text.family("rpg_hibernate_cache_requests_total", "counter", "Second-level and query cache lookups by region and result.");
+        regions.forEach((region, values) -> {
+            text.sample("rpg_hibernate_cache_requests_total", values.get("hits"), "region", region, "result", "hit");
+            text.sample("rpg_hibernate_cache_requests_total", values.get("misses"), "region", region, "result", "miss");
+        });
+        text.family("rpg_hibernate_cache_puts_total", "counter", "Entries written to a cache region.");
+        regions.forEach((region, values) -> text.sample("rpg_hibernate_cache_puts_total", values.get("puts"), "region", region));
+        text.family("rpg_hibernate_cache_size", "gauge", "Entries held by a cache region.");
+        regions.forEach((region, values) -> text.sample("rpg_hibernate_cache_size", values.get("size"), "region", region));
+        text.family("rpg_hibernate_cache_evictions_total", "counter", "Entries dropped by a cache region for its size or age.");
+        regions.forEach((region, values) -> text.sample("rpg_hibernate_cache_evictions_total", values.get("evictions"), "region", region));
+    }
+
+    private void writeQueryShapes(PrometheusText text) {
+        text.family("rpg_query_duration_seconds", "histogram", "Statement latency by the filters and sort of the request.");
+        slowQueryLog.getLatencies().forEach((shape, latency) -> text.histogram("rpg_query_duration_seconds", latency, "shape", shape));
+    }
+
+    private void writePool(PrometheusText text) {
+        if (poolMetrics.isPooled()) {
+            String pool = poolMetrics.getPoolName();
+            text.family("rpg_pool_connections", "gauge", "Connections of the primary pool by state.");
+            text.sample("rpg_pool_connections", poolMetrics.getActiveConnections(), "pool", pool, "state", "active");
+            text.sample("rpg_pool_connections", poolMetrics.getIdleConnections(), "pool", pool, "state", "idle");
+            text.sample("rpg_pool_connections", poolMetrics.getTotalConnections(), "pool", pool, "state", "total");
+            text.sample("rpg_pool_connections", poolMetrics.getMaxConnections(), "pool", pool, "state", "max");
+            text.family("rpg_pool_pending_threads", "gauge", "Threads waiting for a connection.");
+            text.sample("rpg_pool_pending_threads", poolMetrics.getPendingThreads(), "pool", pool);
+            text.family("rpg_pool_connections_created_total", "counter", "Connections opened by the pool.");
+            text.sample("rpg_pool_connections_created_total", poolMetrics.getCreated(), "pool", pool);
+            text.family("rpg_pool_timeouts_total", "counter", "Connection requests that timed out.");
+            text.sample("rpg_pool_timeouts_total", poolMetrics.getTimeouts(), "pool", pool);
+            writeHistogram(text, "rpg_pool_acquire_seconds", "Time to obtain a connection.", poolMetrics.getAcquireTime(), pool);
+            writeHistogram(text, "rpg_pool_usage_seconds", "Time a connection was borrowed.", poolMetrics.getUsageTime(), pool);
+        }
+
+        text.family("rpg_db_executor_threads", "gauge", "Threads of the database executor by state.");
+        text.sample("rpg_db_executor_threads", dbExecutor.getActiveCount(), "state", "active");
+        text.sample("rpg_db_executor_threads", dbExecutor.getPoolSize(), "state", "total");
+        text.family("rpg_db_executor_queued", "gauge", "Tasks waiting in the database executor's queue.");
+        text.sample("rpg_db_executor_queued", dbExecutor.getThreadPoolExecutor().getQueue().size());
+    }
+
+    private static void writeHistogram(PrometheusText text, String name, String help, Histogram histogram, String pool) {
+        text.family(name, "histogram", help);
+        text.histogram(name, histogram, "pool", pool);
+    }
+
+    private void writeCaches(PrometheusText text) {
+        Map<String, Object> players = playerCache.snapshot();
+        Map<String, Object> counts = playerCountCache.snapshot();
+        text.family("rpg_cache_requests_total", "counter", "Cache lookups by cache and result.");
+        text.sample("rpg_cache_requests_total", ((Number) players.get("hits")).doubleValue(), "cache", "players", "result", "hit");
+        text.sample("rpg_cache_requests_total", ((Number) players.get("misses")).doubleValue(), "cache", "players", "result", "miss");
+        text.sample("rpg_cache_requests_total", ((Number) counts.get("hits")).doubleValue(), "cache", "counts", "result", "hit");
+        text.sample("rpg_cache_requests_total", ((Number) counts.get("misses")).doubleValue(), "cache", "counts", "result", "miss");
+        text.family("rpg_cache_size", "gauge", "Entries held by a cache.");
+        text.sample("rpg_cache_size", ((Number) players.get("size")).doubleValue(), "cache", "players");
+        text.sample("rpg_cache_size", ((Number) counts.get("size")).doubleValue(), "cache", "counts");
+    }
+
+    private void writeStartup(PrometheusText text) {
+        text.family("rpg_startup_context_seconds", "gauge", "Time to refresh a Spring context at startup.");
+        startupMetrics.getContextMillis().forEach((context, millis) -> text.sample("rpg_startup_context_seconds", millis / 1e3, "context", context));
+        text.family("rpg_startup_ready_seconds", "gauge", "Time from the JVM start until requests could be served.");
+        text.sample("rpg_startup_ready_seconds", startupMetrics.getReadyMillis() / 1e3);
+    }
+}
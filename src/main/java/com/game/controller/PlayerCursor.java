@@ -0,0 +1,94 @@
+package com.game.controller;
+
+import com.game.BadRequestException;
+import com.game.entity.Player;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of the last row of a keyset page: the sort key of that row plus its id as the tie-breaker.
+ * Serialized as an opaque url-safe token; a null sort key leaves out the key part altogether.
+ */
+public class PlayerCursor {
+    private final PlayerOrder order;
+    private final Comparable<?> value;
+    private final long id;
+
+    private PlayerCursor(PlayerOrder order, Comparable<?> value, long id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    public static PlayerCursor after(PlayerOrder order, Player player) {
+        switch (order) {
+            case NAME:
+                return new PlayerCursor(order, player.getName(), player.getId());
+            case EXPERIENCE:
+                return new PlayerCursor(order, player.getExperience(), player.getId());
+            case BIRTHDAY:
+                return new PlayerCursor(order, player.getBirthday(), player.getId());
+            case LEVEL:
+                return new PlayerCursor(order, player.getLevel(), player.getId());
+            default:
+                return new PlayerCursor(order, null, player.getId());
+        }
+    }
+
+    public static PlayerCursor decode(String token, PlayerOrder expectedOrder) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 3);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+        if (parts.length < 2 || !expectedOrder.name().equals(parts[0])) {
+            throw new BadRequestException();
+        }
+
+        try {
+            long id = Long.parseLong(parts[1]);
+            if (parts.length == 2) {
+                return new PlayerCursor(expectedOrder, null, id);
+            }
+            String raw = parts[2];
+            switch (expectedOrder) {
+                case NAME:
+                    return new PlayerCursor(expectedOrder, raw, id);
+                case EXPERIENCE:
+                case LEVEL:
+                    return new PlayerCursor(expectedOrder, Integer.valueOf(raw), id);
+                case BIRTHDAY:
+                    return new PlayerCursor(expectedOrder, new Date(Long.parseLong(raw)), id);
+                default:
+                    return new PlayerCursor(expectedOrder, null, id);
+            }
+        } catch (NumberFormatException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    public String encode() {
+        String plain = order.name() + "|" + id;
+        if (value instanceof Date) {
+            plain += "|" + ((Date) value).getTime();
+        } else if (value != null) {
+            plain += "|" + value;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public PlayerOrder getOrder() {
+        return order;
+    }
+
+    public Comparable<?> getValue() {
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
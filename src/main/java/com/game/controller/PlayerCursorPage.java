@@ -0,0 +1,37 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.game.entity.Player;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlayerCursorPage {
+    private final List<Player> content;
+    private final int pageSize;
+    private final boolean hasNext;
+    private final String nextCursor;    // null on the last page
+
+    public PlayerCursorPage(List<Player> content, int pageSize, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.pageSize = pageSize;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Player> getContent() {
+        return content;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,126 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes players one at a time to a response writer. Nothing is kept after a row is written,
+ * so an export takes the same memory whatever its size.
+ */
+abstract class PlayerExportWriter implements Closeable {
+    private static final ObjectMapper MAPPER = WebConfig.configureObjectMapper(new ObjectMapper());
+
+    protected final Writer out;
+
+    private PlayerExportWriter(Writer out) {
+        this.out = out;
+    }
+
+    static PlayerExportWriter create(PlayerExportFormat format, Writer out) throws IOException {
+        return format == PlayerExportFormat.CSV ? new Csv(out) : new NdJson(out);
+    }
+
+    /**
+     * @throws UncheckedIOException if the client went away, so the writer can be used as a {@code Consumer}
+     */
+    void write(Player player) {
+        try {
+            writeRow(player);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected abstract void writeRow(Player player) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static class NdJson extends PlayerExportWriter {
+        private final ObjectWriter writer = MAPPER.writerFor(Player.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        private final JsonGenerator generator;
+
+        NdJson(Writer out) throws IOException {
+            super(out);
+            generator = MAPPER.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+        }
+
+        @Override
+        protected void writeRow(Player player) throws IOException {
+            writer.writeValue(generator, player);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+            super.close();
+        }
+    }
+
+    private static class Csv extends PlayerExportWriter {
+
+        Csv(Writer out) throws IOException {
+            super(out);
+            out.write("id,name,title,race,profession,experience,level,untilNextLevel,birthday,banned\n");
+        }
+
+        @Override
+        protected void writeRow(Player player) throws IOException {
+            out.write(String.valueOf(player.getId()));
+            out.write(',');
+            writeText(player.getName());
+            out.write(',');
+            writeText(player.getTitle());
+            out.write(',');
+            out.write(player.getRace() == null ? "" : player.getRace().name());
+            out.write(',');
+            out.write(player.getProfession() == null ? "" : player.getProfession().name());
+            out.write(',');
+            writeNumber(player.getExperience());
+            out.write(',');
+            writeNumber(player.getLevel());
+            out.write(',');
+            writeNumber(player.getUntilNextLevel());
+            out.write(',');
+            out.write(player.getBirthday() == null ? "" : String.valueOf(player.getBirthday().getTime()));
+            out.write(',');
+            out.write(player.getBanned() == null ? "" : String.valueOf(player.getBanned()));
+            out.write('\n');
+        }
+
+        private void writeNumber(Integer value) throws IOException {
+            if (value != null) {
+                out.write(String.valueOf(value));
+            }
+        }
+
+        // RFC 4180: quote fields containing a separator, quote or line break, doubling inner quotes
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.game.controller;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+
+public class PlayerFilter {
+    private String name;
+    private String title;
+    private Race race;
+    private Profession profession;
+    private Long after;
+    private Long before;
+    private Boolean banned;
+    private Integer minExperience;
+    private Integer maxExperience;
+    private Integer minLevel;
+    private Integer maxLevel;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Race getRace() {
+        return race;
+    }
+
+    public void setRace(Race race) {
+        this.race = race;
+    }
+
+    public Profession getProfession() {
+        return profession;
+    }
+
+    public void setProfession(Profession profession) {
+        this.profession = profession;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public void setAfter(Long after) {
+        this.after = after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public void setBefore(Long before) {
+        this.before = before;
+    }
+
+    public Boolean getBanned() {
+        return banned;
+    }
+
+    public void setBanned(Boolean banned) {
+        this.banned = banned;
+    }
+
+    public Integer getMinExperience() {
+        return minExperience;
+    }
+
+    public void setMinExperience(Integer minExperience) {
+        this.minExperience = minExperience;
+    }
+
+    public Integer getMaxExperience() {
+        return maxExperience;
+    }
+
+    public void setMaxExperience(Integer maxExperience) {
+        this.maxExperience = maxExperience;
+    }
+
+    public Integer getMinLevel() {
+        return minLevel;
+    }
+
+    public void setMinLevel(Integer minLevel) {
+        this.minLevel = minLevel;
+    }
+
+    public Integer getMaxLevel() {
+        return maxLevel;
+    }
+
+    public void setMaxLevel(Integer maxLevel) {
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * @return the filter values in a fixed order, equal for requests that select the same players
+     */
+    public List<Object> cacheKey() {
+        return Arrays.asList(name, title, race, profession, after, before, banned,
+                minExperience, maxExperience, minLevel, maxLevel);
+    }
+
+    /**
+     * @return names of the filters that are set, in a fixed order: which columns a query touches, not the values
+     */
+    public String shape() {
+        StringJoiner shape = new StringJoiner(",");
+        addIfSet(shape, "name", name);
+        addIfSet(shape, "title", title);
+        addIfSet(shape, "race", race);
+        addIfSet(shape, "profession", profession);
+        addIfSet(shape, "after", after);
+        addIfSet(shape, "before", before);
+        addIfSet(shape, "banned", banned);
+        addIfSet(shape, "minExperience", minExperience);
+        addIfSet(shape, "maxExperience", maxExperience);
+        addIfSet(shape, "minLevel", minLevel);
+        addIfSet(shape, "maxLevel", maxLevel);
+        return shape.toString();
+    }
+
+    private static void addIfSet(StringJoiner shape, String filter, Object value) {
+        if (value != null) {
+            shape.add(filter);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.game.BadRequestException;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads players one row at a time from a request body in the formats of {@link PlayerExportWriter}. Rows are
+ * capped in length, so a malformed file can't make a row take more memory than that.
+ */
+abstract class PlayerImportReader implements Closeable {
+    static final int MAX_ROW_LENGTH = 64 * 1024;
+
+    private static final ObjectMapper MAPPER = WebConfig.configureObjectMapper(new ObjectMapper());
+
+    protected final Reader in;
+    protected long line;
+
+    private PlayerImportReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * @throws BadRequestException if a CSV header lacks a column every player needs
+     */
+    static PlayerImportReader create(PlayerExportFormat format, Reader in) throws IOException {
+        return format == PlayerExportFormat.CSV ? new Csv(in) : new NdJson(in);
+    }
+
+    /**
+     * @return the next non-blank row, null at the end of the input
+     */
+    abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    static class Row {
+        final long line;
+        final Player player;     // null if the row was rejected
+        final String error;
+
+        private Row(long line, Player player, String error) {
+            this.line = line;
+            this.player = player;
+            this.error = error;
+        }
+
+        static Row of(long line, Player player) {
+            return new Row(line, player, null);
+        }
+
+        static Row rejected(long line, String error) {
+            return new Row(line, null, error);
+        }
+    }
+
+    private static class NdJson extends PlayerImportReader {
+        private final ObjectReader reader = MAPPER.readerFor(Player.class);
+        private final StringBuilder buffer = new StringBuilder();
+
+        NdJson(Reader in) {
+            super(in);
+        }
+
+        @Override
+        Row next() throws IOException {
+            while (true) {
+                buffer.setLength(0);
+                boolean tooLong = false;
+                int c = in.read();
+                if (c == -1) {
+                    return null;
+                }
+                line++;
+                while (c != -1 && c != '\n') {
+                    if (buffer.length() < MAX_ROW_LENGTH) {
+                        buffer.append((char) c);
+                    } else {
+                        tooLong = true;
+                    }
+                    c = in.read();
+                }
+                if (tooLong) {
+                    return Row.rejected(line, "line is longer than " + MAX_ROW_LENGTH + " characters");
+                }
+                if (buffer.toString().trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    return Row.of(line, reader.readValue(buffer.toString()));
+                } catch (JsonProcessingException e) {
+                    return Row.rejected(line, "unreadable JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * RFC 4180 with a header row. Columns are matched by name, so they may come in any order; id, level and
+     * untilNextLevel are ignored like every other unknown column.
+     */
+    private static class Csv extends PlayerImportReader {
+        private static final String[] REQUIRED = {"name", "title", "race", "profession", "birthday", "experience"};
+
+        private final Map<String, Integer> columns = new HashMap<>();
+        private final StringBuilder field = new StringBuilder();
+        private int length;
+        private boolean tooLong;
+
+        Csv(Reader in) throws IOException {
+            super(in);
+            List<String> header = readRecord();
+            if (header != null) {
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim(), i);
+                }
+            }
+            for (String column : REQUIRED) {
+                if (!columns.containsKey(column)) {
+                    throw new BadRequestException();
+                }
+            }
+        }
+
+        @Override
+        Row next() throws IOException {
+            while (true) {
+                long start = line + 1;
+                List<String> fields;
+                try {
+                    fields = readRecord();
+                } catch (IllegalStateException e) {
+                    return Row.rejected(start, e.getMessage());
+                }
+                if (fields == null) {
+                    return null;
+                }
+                if (tooLong) {
+                    return Row.rejected(start, "row is longer than " + MAX_ROW_LENGTH + " characters");
+                }
+                if (fields.size() == 1 && fields.get(0).trim().isEmpty()) {
+                    continue;
+                }
+                return toPlayer(start, fields);
+            }
+        }
+
+        private Row toPlayer(long start, List<String> fields) {
+            Player player = new Player();
+            String column = null;
+            try {
+                column = "name";
+                player.setName(value(fields, column));
+                column = "title";
+                player.setTitle(value(fields, column));
+                column = "race";
+                player.setRace(value(fields, column) == null ? null : Race.valueOf(value(fields, column)));
+                column = "profession";
+                player.setProfession(value(fields, column) == null ? null : Profession.valueOf(value(fields, column)));
+                column = "birthday";
+                player.setBirthday(value(fields, column) == null ? null : new Date(Long.parseLong(value(fields, column))));
+                column = "experience";
+                player.setExperience(value(fields, column) == null ? null : Integer.valueOf(value(fields, column)));
+                column = "banned";
+                player.setBanned(value(fields, column) == null ? null : parseBoolean(value(fields, column)));
+            } catch (IllegalArgumentException e) {
+                return Row.rejected(start, "invalid " + column);
+            }
+            return Row.of(start, player);
+        }
+
+        private String value(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= fields.size() || fields.get(index).isEmpty()) {
+                return null;
+            }
+            return fields.get(index);
+        }
+
+        private static Boolean parseBoolean(String value) {
+            if (!"true".equals(value) && !"false".equals(value)) {
+                throw new IllegalArgumentException(value);
+            }
+            return Boolean.valueOf(value);
+        }
+
+        /**
+         * @return the fields of the next record, which may span several lines inside quotes, null at the end
+         * @throws IllegalStateException if the input ends inside quotes
+         */
+        private List<String> readRecord() throws IOException {
+            int c = in.read();
+            if (c == -1) {
+                return null;
+            }
+            line++;
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            length = 0;
+            tooLong = false;
+            boolean quoted = false;
+
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalStateException("unterminated quotes");
+                    }
+                    if (c == '"') {
+                        c = in.read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                    append(c);
+                } else if (c == ',') {
+                    if (++length > MAX_ROW_LENGTH) {
+                        tooLong = true;
+                    } else {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    }
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c != '\r') {
+                    append(c);
+                }
+                c = in.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private void append(int c) {
+            if (++length > MAX_ROW_LENGTH) {
+                tooLong = true;
+                return;
+            }
+            field.append((char) c);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streams the outcome of an import as NDJSON: a line per rejected row as soon as it is known, and a progress
+ * line after every committed chunk. The last line has {@code "done": true}.
+ */
+class PlayerImportReport {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Writer out;
+    private final JsonGenerator generator;
+    private long rows;
+    private long imported;
+    private long rejected;
+
+    PlayerImportReport(Writer out) throws IOException {
+        this.out = out;
+        this.generator = JSON.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+    }
+
+    void read() {
+        rows++;
+    }
+
+    void imported(int count) {
+        imported += count;
+    }
+
+    void rejected(long line, String error) throws IOException {
+        rejected++;
+        generator.writeStartObject();
+        generator.writeNumberField("line", line);
+        generator.writeNumberField("status", 400);
+        generator.writeStringField("error", error);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Reports the counts so far and pushes everything written to the client.
+     */
+    void progress(boolean done) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("rows", rows);
+        generator.writeNumberField("imported", imported);
+        generator.writeNumberField("rejected", rejected);
+        if (done) {
+            generator.writeBooleanField("done", true);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+        out.flush();
+    }
+}
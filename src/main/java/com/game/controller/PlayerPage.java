@@ -0,0 +1,60 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.game.entity.Player;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlayerPage {
+    private final List<Player> content;
+    private final int pageNumber;
+    private final int pageSize;
+    private final boolean hasNext;
+    private final Long totalElements;   // null in slice mode
+    private final Integer totalPages;   // null in slice mode
+
+    private PlayerPage(List<Player> content, int pageNumber, int pageSize, boolean hasNext, Long totalElements, Integer totalPages) {
+        this.content = content;
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+        this.hasNext = hasNext;
+        this.totalElements = totalElements;
+        this.totalPages = totalPages;
+    }
+
+    public static PlayerPage of(Page<Player> page) {
+        return new PlayerPage(page.getContent(), page.getNumber(), page.getSize(), page.hasNext(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+
+    public static PlayerPage of(Slice<Player> slice) {
+        return new PlayerPage(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), null, null);
+    }
+
+    public List<Player> getContent() {
+        return content;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public Integer getTotalPages() {
+        return totalPages;
+    }
+}
@@ -1,117 +1,406 @@
 package com.game.controller;
 
 import com.game.entity.Player;
-import com.game.entity.Profession;
-import com.game.entity.Race;
+import com.game.metrics.SlowQueryLog;
+import com.game.service.BulkResult;
+import com.game.service.ExperienceWriteBehind;
+import com.game.service.PlayerCountCache;
+import com.game.service.PlayerFacets;
 import com.game.service.PlayerService;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping(value = "/rest")
-public class RestPlayerController {
+public class RestPlayerController implements InitializingBean {
     private PlayerService playerService;
+    private PlayerCountCache playerCountCache;
+    private PlayerFacets playerFacets;
+    private ExperienceWriteBehind experienceWriteBehind;
+    private SlowQueryLog slowQueryLog;
+    private Executor dbExecutor;
+
+    @Value("${web.async.retryAfterSeconds:1}")
+    private int retryAfterSeconds;
+
+    @Value("${import.chunkSize:1000}")
+    private int importChunkSize;
+
+    @Value("${bulk.maxItems:10000}")
+    private int maxBulkItems;
+
+    // a chunk is created with createPlayers, which would reject it only after the 200 response has started
+    @Override
+    public void afterPropertiesSet() {
+        if (importChunkSize < 1 || importChunkSize > maxBulkItems) {
+            throw new IllegalStateException("import.chunkSize must be 1 to bulk.maxItems (" + maxBulkItems + "), got " + importChunkSize);
+        }
+    }
 
     @Autowired
     public void setPlayerService(PlayerService playerService) {
         this.playerService = playerService;
     }
 
+    @Autowired
+    public void setDbExecutor(@Qualifier("dbExecutor") Executor dbExecutor) {
+        this.dbExecutor = dbExecutor;
+    }
+
+    @Autowired
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Autowired
+    public void setExperienceWriteBehind(ExperienceWriteBehind experienceWriteBehind) {
+        this.experienceWriteBehind = experienceWriteBehind;
+    }
+
+    @Autowired
+    public void setPlayerFacets(PlayerFacets playerFacets) {
+        this.playerFacets = playerFacets;
+    }
+
+    @Autowired
+    public void setPlayerCountCache(PlayerCountCache playerCountCache) {
+        this.playerCountCache = playerCountCache;
+    }
+
     @GetMapping("/players")
     @ResponseBody
-    public ResponseEntity<List<Player>> getAllPlayers(@RequestParam(value = "name", required = false) String name,
-                                                      @RequestParam(value = "title", required = false) String title,
-                                                      @RequestParam(value = "race", required = false) Race race,
-                                                      @RequestParam(value = "profession", required = false) Profession profession,
-                                                      @RequestParam(value = "after", required = false) Long after,
-                                                      @RequestParam(value = "before", required = false) Long before,
-                                                      @RequestParam(value = "banned", required = false) Boolean banned,
-                                                      @RequestParam(value = "minExperience", required = false) Integer minExperience,
-                                                      @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
-                                                      @RequestParam(value = "minLevel", required = false) Integer minLevel,
-                                                      @RequestParam(value = "maxLevel", required = false) Integer maxLevel,
-                                                      @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder order,
-                                                      @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
-                                                      @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize) {
+    public CompletableFuture<ResponseEntity<List<Player>>> getAllPlayers(PlayerFilter filter,
+                                                                         @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder order,
+                                                                         @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
+                                                                         @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+                                                                         @RequestHeader HttpHeaders requestHeaders) {
 
         Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
 
-        Specification<Player> specification = Specification.where(playerService.selectByName(name)
-                .and(playerService.selectByTitle(title))
-                .and(playerService.selectByRace(race))
-                .and(playerService.selectByProfession(profession))
-                .and(playerService.selectByDate(after, before))
-                .and(playerService.selectByBan(banned))
-                .and(playerService.selectByExp(minExperience, maxExperience))
-                .and(playerService.selectByLevel(minLevel, maxLevel)));
+        return onDbExecutor(queryShape("players", filter, order), pageDetails(pageable), () -> {
+            List<Player> players = playerService.getPlayersSlice(toSpecification(filter), pageable).getContent();
+            return conditional(requestHeaders, ConditionalRequests.etag(players), players);
+        });
+    }
+
+    @GetMapping("/players/page")
+    public CompletableFuture<ResponseEntity<PlayerPage>> getPlayersPage(PlayerFilter filter,
+                                                                        @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder order,
+                                                                        @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
+                                                                        @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+                                                                        @RequestParam(value = "slice", required = false, defaultValue = "false") boolean slice,
+                                                                        @RequestHeader HttpHeaders requestHeaders) {
+
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
+        Specification<Player> specification = toSpecification(filter);
+
+        return onDbExecutor(queryShape(slice ? "page/slice" : "page", filter, order), pageDetails(pageable), () -> {
+            PlayerPage page = slice
+                    ? PlayerPage.of(playerService.getPlayersSlice(specification, pageable))
+                    : PlayerPage.of(playerService.getPlayersList(specification, pageable));
+            String etag = ConditionalRequests.etag(page.getContent(), page.getPageNumber(), page.getPageSize(),
+                    page.isHasNext(), page.getTotalElements(), page.getTotalPages());
+            return conditional(requestHeaders, etag, page);
+        });
+    }
+
+    @GetMapping("/players/seek")
+    public CompletableFuture<ResponseEntity<PlayerCursorPage>> getPlayersAfter(PlayerFilter filter,
+                                                                               @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder order,
+                                                                               @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+                                                                               @RequestParam(value = "cursor", required = false) String cursor) {
 
-        return new ResponseEntity<>(playerService.getPlayersList(specification, pageable).getContent(), HttpStatus.OK);
+        Specification<Player> specification = toSpecification(filter);
+        if (cursor != null && !cursor.isEmpty()) {
+            PlayerCursor position = PlayerCursor.decode(cursor, order);
+            specification = specification.and(playerService.selectAfter(order.getFieldName(), position.getValue(), position.getId()));
+        }
+
+        Pageable pageable = PageRequest.of(0, pageSize, stableSort(order));
+        Specification<Player> seekSpecification = specification;
+        String shape = queryShape(cursor != null && !cursor.isEmpty() ? "seek/after" : "seek", filter, order);
+
+        return onDbExecutor(shape, "pageSize=" + pageSize, () -> {
+            Slice<Player> slice = playerService.getPlayersSlice(seekSpecification, pageable);
+
+            List<Player> content = slice.getContent();
+            String nextCursor = slice.hasNext() ? PlayerCursor.after(order, content.get(content.size() - 1)).encode() : null;
+            return new ResponseEntity<>(new PlayerCursorPage(content, pageSize, slice.hasNext(), nextCursor), HttpStatus.OK);
+        });
+    }
+
+    @GetMapping("/players/export")
+    public void exportPlayers(PlayerFilter filter,
+                              @RequestParam(value = "order", required = false, defaultValue = "ID") PlayerOrder order,
+                              @RequestParam(value = "format", required = false, defaultValue = "NDJSON") PlayerExportFormat format,
+                              HttpServletResponse response) throws IOException {
+
+        Specification<Player> specification = toSpecification(filter);
+        Sort sort = stableSort(order);
+
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"players." + format.getExtension() + "\"");
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        try (PlayerExportWriter writer = PlayerExportWriter.create(format, out)) {
+            slowQueryLog.during(queryShape("export", filter, order), "format=" + format, () -> {
+                playerService.exportPlayers(specification, sort, writer::write);
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Creates players from a CSV or NDJSON body read as a stream, committing every {@code import.chunkSize} rows
+     * with the validation of {@code POST /players}. The response streams rejected rows and progress as NDJSON;
+     * everything reported before a failure is committed.
+     */
+    @PostMapping("/players/import")
+    public void importPlayers(@RequestParam(value = "format", required = false, defaultValue = "NDJSON") PlayerExportFormat format,
+                              HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        try (PlayerImportReader reader = PlayerImportReader.create(format, in)) {
+            response.setContentType(PlayerExportFormat.NDJSON.getContentType());
+            response.setCharacterEncoding("UTF-8");
+            Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+            PlayerImportReport report = new PlayerImportReport(out);
+
+            List<Player> chunk = new ArrayList<>();
+            List<Long> lines = new ArrayList<>();
+            PlayerImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                report.read();
+                if (row.player == null) {
+                    report.rejected(row.line, row.error);
+                    continue;
+                }
+                chunk.add(row.player);
+                lines.add(row.line);
+                if (chunk.size() == importChunkSize) {
+                    importChunk(chunk, lines, report);
+                }
+            }
+            importChunk(chunk, lines, report);
+            report.progress(true);
+            out.close();
+        }
+    }
+
+    private void importChunk(List<Player> chunk, List<Long> lines, PlayerImportReport report) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<BulkResult> results = playerService.createPlayers(chunk);
+        int imported = 0;
+        for (BulkResult result : results) {
+            if (result.getStatus() == 200) {
+                imported++;
+            } else {
+                report.rejected(lines.get(result.getIndex()), result.getError());
+            }
+        }
+        report.imported(imported);
+        report.progress(false);
+        chunk.clear();
+        lines.clear();
     }
 
     @GetMapping("/players/count")
-    public ResponseEntity getCount(@RequestParam(value = "name", required = false) String name,
-                                   @RequestParam(value = "title", required = false) String title,
-                                   @RequestParam(value = "race", required = false) Race race,
-                                   @RequestParam(value = "profession", required = false) Profession profession,
-                                   @RequestParam(value = "after", required = false) Long after,
-                                   @RequestParam(value = "before", required = false) Long before,
-                                   @RequestParam(value = "banned", required = false) Boolean banned,
-                                   @RequestParam(value = "minExperience", required = false) Integer minExperience,
-                                   @RequestParam(value = "maxExperience", required = false) Integer maxExperience,
-                                   @RequestParam(value = "minLevel", required = false) Integer minLevel,
-                                   @RequestParam(value = "maxLevel", required = false) Integer maxLevel) {
-
-        Specification<Player> specification = Specification.where(playerService.selectByName(name)
-                .and(playerService.selectByTitle(title))
-                .and(playerService.selectByRace(race))
-                .and(playerService.selectByProfession(profession))
-                .and(playerService.selectByDate(after, before))
-                .and(playerService.selectByBan(banned))
-                .and(playerService.selectByExp(minExperience, maxExperience))
-                .and(playerService.selectByLevel(minLevel, maxLevel)));
-
-        return new ResponseEntity<>(playerService.getPlayerCount(specification), HttpStatus.OK);
+    public CompletableFuture<ResponseEntity<Integer>> getCount(PlayerFilter filter) {
+        return onDbExecutor(queryShape("count", filter, null), "", () -> {
+            Integer count = playerCountCache.get(filter.cacheKey(), () -> playerService.getPlayerCount(toSpecification(filter)));
+            return new ResponseEntity<>(count, HttpStatus.OK);
+        });
+    }
+
+    @GetMapping("/players/facets")
+    public ResponseEntity<Map<String, Object>> getFacets() {
+        return new ResponseEntity<>(playerFacets.snapshot(), HttpStatus.OK);
+    }
+
+    @PostMapping("/players/facets/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildFacets() {
+        playerFacets.reload();
+        return new ResponseEntity<>(playerFacets.snapshot(), HttpStatus.OK);
     }
 
     @PostMapping("/players")
-    public ResponseEntity<Player> createPlayer(@RequestBody Player player) {
-        Player responsePlayer;
-        responsePlayer = playerService.createPlayer(player);
+    public CompletableFuture<ResponseEntity<Player>> createPlayer(@RequestBody Player player) {
+        return onDbExecutor(() -> {
+            Player responsePlayer;
+            responsePlayer = playerService.createPlayer(player);
 
-        return new ResponseEntity<>(responsePlayer, HttpStatus.OK);
+            return new ResponseEntity<>(responsePlayer, HttpStatus.OK);
+        });
+    }
+
+    @PostMapping("/players/bulk")
+    public CompletableFuture<ResponseEntity<List<BulkResult>>> createPlayers(@RequestBody List<Player> players) {
+        return onDbExecutor(() -> new ResponseEntity<>(playerService.createPlayers(players), HttpStatus.OK));
+    }
+
+    @PostMapping("/players/bulk/update")
+    public CompletableFuture<ResponseEntity<List<BulkResult>>> updatePlayers(@RequestBody List<Player> players) {
+        return onDbExecutor(() -> new ResponseEntity<>(playerService.updatePlayers(players), HttpStatus.OK));
+    }
+
+    @PostMapping("/players/bulk/delete")
+    public CompletableFuture<ResponseEntity<List<BulkResult>>> deletePlayers(@RequestBody List<Long> ids) {
+        return onDbExecutor(() -> new ResponseEntity<>(playerService.deletePlayers(ids), HttpStatus.OK));
     }
 
     @DeleteMapping("/players/{id}")
-    public ResponseEntity<Player> deletePlayer(@PathVariable String id) {
+    public CompletableFuture<ResponseEntity<Player>> deletePlayer(@PathVariable String id) {
         Long checkedId = playerService.checkId(id);
-        playerService.deletePlayer(checkedId);
+        return onDbExecutor(() -> {
+            playerService.deletePlayer(checkedId);
 
-        return new ResponseEntity<Player>(HttpStatus.OK);
+            return new ResponseEntity<Player>(HttpStatus.OK);
+        });
     }
 
     @PostMapping("/players/{id}")
-    public ResponseEntity<Player> updatePlayer(@PathVariable String id, @RequestBody Player player) {
+    public CompletableFuture<ResponseEntity<Player>> updatePlayer(@PathVariable String id, @RequestBody Player player) {
         Long checkedId = playerService.checkId(id);
-        Player updatedPlayer = playerService.updatePlayer(checkedId, player);
+        return onDbExecutor(() -> {
+            Player updatedPlayer = playerService.updatePlayer(checkedId, player);
 
-        return new ResponseEntity<>(updatedPlayer, HttpStatus.OK);
+            return new ResponseEntity<>(updatedPlayer, HttpStatus.OK);
+        });
     }
 
+    /**
+     * Adds to the player's experience in one atomic statement and returns the result. With {@code deferred=true}
+     * the delta is only queued for the next write-behind flush and 202 is returned.
+     */
+    @PostMapping("/players/{id}/experience")
+    public CompletableFuture<ResponseEntity<Player>> addExperience(@PathVariable String id,
+                                                                   @RequestBody ExperienceDelta delta,
+                                                                   @RequestParam(value = "deferred", required = false, defaultValue = "false") boolean deferred) {
+        Long checkedId = playerService.checkId(id);
+        playerService.checkExperienceDelta(delta.getDelta());
+
+        if (deferred) {
+            return onDbExecutor(() -> {
+                playerService.getPlayerById(checkedId);
+                experienceWriteBehind.add(checkedId, delta.getDelta());
+
+                return new ResponseEntity<Player>(HttpStatus.ACCEPTED);
+            });
+        }
+        return onDbExecutor(() -> new ResponseEntity<>(playerService.addExperience(checkedId, delta.getDelta()), HttpStatus.OK));
+    }
+
+    /**
+     * Answers If-None-Match and If-Modified-Since from the player's version alone, which comes from a two-column
+     * query, so a 304 never loads or serializes the player.
+     */
     @GetMapping("/players/{id}")
-    public ResponseEntity<Player> getPlayerById(@PathVariable String id) {
-        Player responseplayer;
+    public CompletableFuture<ResponseEntity<Player>> getPlayerById(@PathVariable String id, @RequestHeader HttpHeaders requestHeaders) {
         Long checkedId = playerService.checkId(id);
-        responseplayer = playerService.getPlayerById(checkedId);
+        return onDbExecutor(() -> {
+            if (ConditionalRequests.isConditional(requestHeaders)) {
+                Player version = playerService.getPlayerVersion(checkedId);
+                String etag = ConditionalRequests.etag(version);
+                if (ConditionalRequests.isNotModified(requestHeaders, etag, version.getUpdated())) {
+                    return new ResponseEntity<Player>(ConditionalRequests.validators(etag, version.getUpdated()), HttpStatus.NOT_MODIFIED);
+                }
+            }
+            Player responseplayer;
+            responseplayer = playerService.getPlayerById(checkedId);
 
-        return new ResponseEntity<Player>(responseplayer, HttpStatus.OK);
+            HttpHeaders headers = ConditionalRequests.validators(ConditionalRequests.etag(responseplayer), responseplayer.getUpdated());
+            return new ResponseEntity<Player>(responseplayer, headers, HttpStatus.OK);
+        });
     }
 
-}
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> overloaded() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return new ResponseEntity<>(headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    // 304 carries the validators but no body, so the content is never serialized
+    private static <T> ResponseEntity<T> conditional(HttpHeaders requestHeaders, String etag, T body) {
+        HttpHeaders headers = ConditionalRequests.validators(etag, null);
+        if (ConditionalRequests.isNotModified(requestHeaders, etag, null)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Runs database work on the bounded executor, so container threads stay free for other requests. When its
+     * queue is full the task is rejected right away and the client gets 503 instead of waiting.
+     */
+    private <T> CompletableFuture<T> onDbExecutor(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, dbExecutor);
+    }
+
+    /**
+     * Binds the query shape to the task, so every statement it runs is timed under it by {@link SlowQueryLog}.
+     */
+    private <T> CompletableFuture<T> onDbExecutor(String shape, String details, Supplier<T> work) {
+        return onDbExecutor(() -> slowQueryLog.during(shape, details, work));
+    }
+
+    // which filters and which sort a request used, never their values
+    private static String queryShape(String endpoint, PlayerFilter filter, PlayerOrder order) {
+        return endpoint + " [" + filter.shape() + "]" + (order == null ? "" : " order=" + order);
+    }
+
+    private static String pageDetails(Pageable pageable) {
+        return "pageNumber=" + pageable.getPageNumber() + ", pageSize=" + pageable.getPageSize();
+    }
+
+    // ties on the order field are broken by id, so the row order is total
+    private static Sort stableSort(PlayerOrder order) {
+        return order == PlayerOrder.ID ? Sort.by("id") : Sort.by(order.getFieldName()).and(Sort.by("id"));
+    }
+
+    private Specification<Player> toSpecification(PlayerFilter filter) {
+        return Specification.where(playerService.selectByName(filter.getName())
+                .and(playerService.selectByTitle(filter.getTitle()))
+                .and(playerService.selectByRace(filter.getRace()))
+                .and(playerService.selectByProfession(filter.getProfession()))
+                .and(playerService.selectByDate(filter.getAfter(), filter.getBefore()))
+                .and(playerService.selectByBan(filter.getBanned()))
+                .and(playerService.selectByExp(filter.getMinExperience(), filter.getMaxExperience()))
+                .and(playerService.selectByLevel(filter.getMinLevel(), filter.getMaxLevel())));
+    }
+}
\ No newline at end of file
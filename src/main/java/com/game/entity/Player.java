@@ -1,10 +1,16 @@
 package com.game.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
 @Table (name = "player")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "player")
 public class Player {
     @Id
     @Column(name = "id")
@@ -40,6 +46,32 @@ public class Player {
     @Column(name = "banned")
     private Boolean banned;             // Забанен / не забанен
 
+    @JsonIgnore
+    @Column(name = "version")
+    private Long version;               // Номер версии, растёт при каждом изменении
+
+    @JsonIgnore
+    @Column(name = "updated")
+    private Long updated;               // Время последнего изменения, мс с начала эпохи
+
+    public Player() {
+    }
+
+    public Player(Player other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.title = other.title;
+        this.race = other.race;
+        this.profession = other.profession;
+        this.experience = other.experience;
+        this.level = other.level;
+        this.untilNextLevel = other.untilNextLevel;
+        this.birthday = other.birthday == null ? null : new Date(other.birthday.getTime());
+        this.banned = other.banned;
+        this.version = other.version;
+        this.updated = other.updated;
+    }
+
     public Long getId() {
         return id;
     }
@@ -120,6 +152,22 @@ public class Player {
         this.banned = banned;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(Long updated) {
+        this.updated = updated;
+    }
+
     @Override
     public String toString() {
         return String.format("id : %s; name : %s; title: %s; rase: %s; profession: %s; exp: %d; LVL: %d; nextLVL: %d; date: %d; ban: %b;",
@@ -0,0 +1,88 @@
+package com.game.metrics;
+
+import com.game.config.CaffeineRegionFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counters of Hibernate's statistics, collected when {@code db.hibernate.statistics} is on, and the state of the
+ * second-level cache regions.
+ */
+@Component
+public class HibernateMetrics {
+    private Statistics statistics;
+    private CaffeineRegionFactory regionFactory;
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Autowired
+    public void setRegionFactory(CaffeineRegionFactory regionFactory) {
+        this.regionFactory = regionFactory;
+    }
+
+    public boolean isEnabled() {
+        return statistics.isStatisticsEnabled();
+    }
+
+    /**
+     * @return counter values by name, in the order they are exported
+     */
+    public Map<String, Long> counters() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("queries", statistics.getQueryExecutionCount());
+        result.put("statementsPrepared", statistics.getPrepareStatementCount());
+        result.put("entityLoads", statistics.getEntityLoadCount());
+        result.put("entityFetches", statistics.getEntityFetchCount());
+        result.put("entityInserts", statistics.getEntityInsertCount());
+        result.put("entityUpdates", statistics.getEntityUpdateCount());
+        result.put("entityDeletes", statistics.getEntityDeleteCount());
+        result.put("flushes", statistics.getFlushCount());
+        result.put("sessionsOpened", statistics.getSessionOpenCount());
+        result.put("transactions", statistics.getTransactionCount());
+        result.put("optimisticFailures", statistics.getOptimisticFailureCount());
+        result.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        result.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        result.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        result.put("queryCachePuts", statistics.getQueryCachePutCount());
+        return result;
+    }
+
+    /**
+     * @return hits, misses, puts, entries and evictions by cache region, empty while {@code db.cache.enabled} is off
+     */
+    public Map<String, Map<String, Long>> regions() {
+        Map<String, Map<String, Long>> result = regionFactory.snapshot();
+        result.forEach((name, region) -> {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(name);
+            region.put("hits", regionStatistics == null ? 0 : regionStatistics.getHitCount());
+            region.put("misses", regionStatistics == null ? 0 : regionStatistics.getMissCount());
+            region.put("puts", regionStatistics == null ? 0 : regionStatistics.getPutCount());
+        });
+        return result;
+    }
+
+    public long getQueryExecutionMaxMillis() {
+        return statistics.getQueryExecutionMaxTime();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", isEnabled());
+        result.putAll(counters());
+        result.put("queryMaxMs", getQueryExecutionMaxMillis());
+        result.put("cacheRegions", regions());
+        return result;
+    }
+}
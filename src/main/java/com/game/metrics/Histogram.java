@@ -0,0 +1,109 @@
+package com.game.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed 1-2-5 buckets from 10 microseconds to 30 seconds.
+ * Values are recorded in nanoseconds; percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public class Histogram {
+    private static final long[] BOUNDS = {
+            10_000L, 20_000L, 50_000L,
+            100_000L, 200_000L, 500_000L,
+            1_000_000L, 2_000_000L, 5_000_000L,
+            10_000_000L, 20_000_000L, 50_000_000L,
+            100_000_000L, 200_000_000L, 500_000_000L,
+            1_000_000_000L, 2_000_000_000L, 5_000_000_000L,
+            10_000_000_000L, 30_000_000_000L
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        record(unit.toNanos(duration));
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sum.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public long percentileNanos(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return i < BOUNDS.length ? Math.min(BOUNDS[i], getMaxNanos()) : getMaxNanos();
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public static long[] getBounds() {
+        return BOUNDS.clone();
+    }
+
+    public long[] getBucketCounts() {
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", getCount());
+        result.put("meanMs", getCount() == 0 ? 0.0 : getSumNanos() / 1e6 / getCount());
+        result.put("p50Ms", percentileNanos(50) / 1e6);
+        result.put("p99Ms", percentileNanos(99) / 1e6);
+        result.put("p999Ms", percentileNanos(99.9) / 1e6);
+        result.put("maxMs", getMaxNanos() / 1e6);
+        return result;
+    }
+
+    private static int bucketOf(long nanos) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (nanos <= BOUNDS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS.length;
+    }
+}
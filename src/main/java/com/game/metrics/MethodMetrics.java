@@ -0,0 +1,87 @@
+package com.game.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times every call into beans annotated with {@link Timed}, keyed by class and method name (overloads share a
+ * key). The advice is added in front of existing proxies, so a call is measured including its transaction.
+ */
+@Component
+public class MethodMetrics extends AbstractAdvisingBeanPostProcessor {
+    private final ConcurrentMap<Method, Timer> byMethod = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Timer> byName = new ConcurrentHashMap<>();
+
+    public MethodMetrics() {
+        MethodInterceptor interceptor = this::invoke;
+        this.advisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Timed.class, true), interceptor);
+        setBeforeExistingAdvisors(true);
+    }
+
+    private Object invoke(MethodInvocation invocation) throws Throwable {
+        Timer timer = byMethod.get(invocation.getMethod());
+        if (timer == null) {
+            timer = timer(invocation);
+        }
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            timer.errors.increment();
+            throw e;
+        } finally {
+            timer.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    private Timer timer(MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() == null
+                ? invocation.getMethod().getDeclaringClass()
+                : AopUtils.getTargetClass(invocation.getThis());
+        String name = targetClass.getSimpleName() + "." + invocation.getMethod().getName();
+        return byMethod.computeIfAbsent(invocation.getMethod(), method -> byName.computeIfAbsent(name, key -> new Timer()));
+    }
+
+    /**
+     * @return timers sorted by method name
+     */
+    public Map<String, Timer> getTimers() {
+        return new TreeMap<>(byName);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        getTimers().forEach((name, timer) -> {
+            Map<String, Object> stats = timer.latency.snapshot();
+            stats.put("errors", timer.getErrors());
+            result.put(name, stats);
+        });
+        return result;
+    }
+
+    public static class Timer {
+        private final Histogram latency = new Histogram();
+        private final LongAdder errors = new LongAdder();
+
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.game.metrics;
+
+/**
+ * Builds a scrape in the Prometheus text exposition format (version 0.0.4). Labels are passed as
+ * alternating names and values.
+ */
+public class PrometheusText {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder out = new StringBuilder();
+
+    public PrometheusText family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public PrometheusText sample(String name, double value, String... labels) {
+        out.append(name);
+        appendLabels(labels, null, null);
+        out.append(' ').append(format(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes the cumulative buckets, sum and count of a histogram in seconds. The count is taken from the same
+     * bucket snapshot, so it always equals the {@code +Inf} bucket.
+     */
+    public PrometheusText histogram(String name, Histogram histogram, String... labels) {
+        long[] bounds = Histogram.getBounds();
+        long[] counts = histogram.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            out.append(name).append("_bucket");
+            appendLabels(labels, "le", i < bounds.length ? format(bounds[i] / 1e9) : "+Inf");
+            out.append(' ').append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum");
+        appendLabels(labels, null, null);
+        out.append(' ').append(format(histogram.getSumNanos() / 1e9)).append('\n');
+        out.append(name).append("_count");
+        appendLabels(labels, null, null);
+        out.append(' ').append(cumulative).append('\n');
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void appendLabels(String[] labels, String extraName, String extraValue) {
+        if (labels.length == 0 && extraName == null) {
+            return;
+        }
+        out.append('{');
+        for (int i = 0; i < labels.length; i += 2) {
+            appendLabel(labels[i], labels[i + 1]);
+        }
+        if (extraName != null) {
+            appendLabel(extraName, extraValue);
+        }
+        out.setCharAt(out.length() - 1, '}');
+    }
+
+    private void appendLabel(String name, String value) {
+        out.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+        out.append("\",");
+    }
+
+    private static String format(double value) {
+        if (value == (long) value) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,85 @@
+package com.game.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error responses per endpoint, keyed by the HTTP method and the matched path pattern. The clock
+ * starts on the first dispatch, so asynchronous handlers are measured up to the dispatch that writes the result.
+ */
+@Component
+public class RequestMetrics implements HandlerInterceptor {
+    private static final String START = RequestMetrics.class.getName() + ".start";
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START) == null) {
+            request.setAttribute(START, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (start == null || pattern == null) {
+            return;
+        }
+        Endpoint endpoint = endpoints.computeIfAbsent(request.getMethod() + " " + pattern, key -> new Endpoint());
+        endpoint.latency.record(System.nanoTime() - (Long) start);
+
+        // an exception left unhandled here becomes a 500 further up
+        int status = ex != null ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        if (status >= 400) {
+            endpoint.errors.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * @return endpoints sorted by key
+     */
+    public Map<String, Endpoint> getEndpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        getEndpoints().forEach((key, endpoint) -> {
+            Map<String, Object> stats = endpoint.latency.snapshot();
+            stats.put("errors", endpoint.getErrors());
+            result.put(key, stats);
+        });
+        return result;
+    }
+
+    public static class Endpoint {
+        private final Histogram latency = new Histogram();
+        private final ConcurrentMap<Integer, LongAdder> errors = new ConcurrentHashMap<>();
+
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return error responses by status code
+         */
+        public Map<Integer, Long> getErrors() {
+            Map<Integer, Long> result = new TreeMap<>();
+            errors.forEach((status, count) -> result.put(status, count.sum()));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.game.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Times the SQL statements run on behalf of a query shape, a fingerprint of which filters and sort a request
+ * used (not their values), and logs those slower than {@code db.slowQuery.thresholdMs} with their SQL.
+ * Statements prepared while no shape is bound are passed through untouched.
+ */
+@Component
+public class SlowQueryLog {
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private final ThreadLocal<Context> current = new ThreadLocal<>();
+    private final ConcurrentMap<String, Shape> shapes = new ConcurrentHashMap<>();
+
+    private long thresholdNanos;
+
+    @Value("${db.slowQuery.thresholdMs:200}")
+    public void setThresholdMs(long thresholdMs) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+    }
+
+    /**
+     * Runs {@code work} with the shape bound to the current thread.
+     *
+     * @param details values that matter for the plan but not for the shape, such as the page, logged with slow queries
+     */
+    public <T> T during(String fingerprint, String details, Supplier<T> work) {
+        Context previous = current.get();
+        current.set(new Context(fingerprint, details));
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    public DataSource wrap(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return connection(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return connection(super.getConnection(username, password));
+            }
+        };
+    }
+
+    /**
+     * @return the shapes with the largest total time spent in their statements, largest first
+     */
+    public List<Map<String, Object>> top(int limit) {
+        List<Map.Entry<String, Shape>> sorted = new ArrayList<>(shapes.entrySet());
+        sorted.sort(Comparator.comparingLong((Map.Entry<String, Shape> entry) -> entry.getValue().latency.getSumNanos()).reversed());
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<String, Shape> entry : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            Shape shape = entry.getValue();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("shape", entry.getKey());
+            stats.put("totalMs", shape.latency.getSumNanos() / 1e6);
+            stats.putAll(shape.latency.snapshot());
+            stats.put("slow", shape.slow.sum());
+            stats.put("slowestSql", shape.slowestSql);
+            result.add(stats);
+        }
+        return result;
+    }
+
+    public Map<String, Histogram> getLatencies() {
+        Map<String, Histogram> result = new LinkedHashMap<>();
+        shapes.forEach((fingerprint, shape) -> result.put(fingerprint, shape.latency));
+        return result;
+    }
+
+    private Connection connection(Connection target) {
+        return proxy(Connection.class, target, (method, args) -> {
+            Object result = method.invoke(target, args);
+            Context context = current.get();
+            if (context == null || !(result instanceof Statement)) {
+                return result;
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+            return statement((Statement) result, context, sql);
+        });
+    }
+
+    private Statement statement(Statement target, Context context, String preparedSql) {
+        Class<? extends Statement> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+
+        return proxy(type, target, (method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return method.invoke(target, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return method.invoke(target, args);
+            } finally {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                record(context, sql, System.nanoTime() - start);
+            }
+        });
+    }
+
+    private void record(Context context, String sql, long nanos) {
+        Shape shape = shapes.computeIfAbsent(context.fingerprint, key -> new Shape());
+        shape.latency.record(nanos);
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        shape.slow.increment();
+        synchronized (shape) {
+            if (nanos > shape.slowestNanos) {
+                shape.slowestNanos = nanos;
+                shape.slowestSql = sql;
+            }
+        }
+        log.warn("Slow query: {} ms, shape [{}]{}, sql: {}", TimeUnit.NANOSECONDS.toMillis(nanos),
+                context.fingerprint, context.details.isEmpty() ? "" : ", " + context.details, sql);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, Invoker invoker) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            // JDBC pools and Hibernate keep statements in hash maps, identity has to hold for the proxy itself
+            if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            try {
+                return invoker.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(SlowQueryLog.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private interface Invoker {
+        Object invoke(Method method, Object[] args) throws Exception;
+    }
+
+    private static class Context {
+        final String fingerprint;
+        final String details;
+
+        Context(String fingerprint, String details) {
+            this.fingerprint = fingerprint;
+            this.details = details;
+        }
+    }
+
+    private static class Shape {
+        final Histogram latency = new Histogram();
+        final LongAdder slow = new LongAdder();
+        long slowestNanos;
+        volatile String slowestSql;
+    }
+}
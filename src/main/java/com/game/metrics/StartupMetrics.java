@@ -0,0 +1,156 @@
+package com.game.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * How long it took from the JVM start until the application could serve requests, how much of that went
+ * into refreshing each Spring context and which beans of this context took longest to create. The embedded
+ * server adds when its connector started listening.
+ * <p>
+ * A bean's time is its own: the creation of beans it depends on, which happens while it is being created, is
+ * subtracted. Beans created before this post processor was registered aren't timed.
+ */
+@Component
+public class StartupMetrics implements ApplicationListener<ContextRefreshedEvent>, InstantiationAwareBeanPostProcessor, PriorityOrdered {
+    private static final Logger log = LoggerFactory.getLogger(StartupMetrics.class);
+    private static final int SLOWEST_BEANS = 10;
+
+    private final RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+    private final ThreadLocal<Deque<Creation>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Map<String, Long> beanNanos = new HashMap<>();
+    private final Map<String, Long> contextMillis = new LinkedHashMap<>();
+    private long firstContextStartedMillis = -1;
+    private long readyMillis = -1;
+    private long serverReadyMillis = -1;
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        creating.get().push(new Creation(beanName, System.nanoTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Deque<Creation> stack = creating.get();
+        // objects made by factory beans come here without having been instantiated, and a failed creation
+        // leaves its entry behind
+        if (stack.stream().noneMatch(creation -> creation.beanName.equals(beanName))) {
+            return bean;
+        }
+        Creation creation = stack.pop();
+        while (!creation.beanName.equals(beanName)) {
+            creation = stack.pop();
+        }
+        long nanos = System.nanoTime() - creation.start;
+        if (!stack.isEmpty()) {
+            stack.peek().nested += nanos;
+        }
+        synchronized (this) {
+            beanNanos.merge(beanName, nanos - creation.nested, Long::sum);
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+        String name = context.getParent() == null ? "root" : "servlet";
+        synchronized (this) {
+            if (contextMillis.containsKey(name)) {
+                return;
+            }
+            contextMillis.put(name, System.currentTimeMillis() - context.getStartupDate());
+            ApplicationContext first = context;
+            while (first.getParent() != null) {
+                first = first.getParent();
+            }
+            long started = first.getStartupDate() - runtime.getStartTime();
+            if (firstContextStartedMillis < 0 || started < firstContextStartedMillis) {
+                firstContextStartedMillis = started;
+            }
+            readyMillis = runtime.getUptime();
+        }
+        log.info("Spring {} context refreshed in {} ms, {} ms after the JVM start; slowest beans: {}", name,
+                contextMillis.get(name), readyMillis, getSlowestBeanMillis());
+    }
+
+    /**
+     * Called by the embedded server once its connector accepts requests.
+     */
+    public synchronized void serverStarted() {
+        serverReadyMillis = runtime.getUptime();
+    }
+
+    /**
+     * @return milliseconds by context, in the order they were refreshed
+     */
+    public synchronized Map<String, Long> getContextMillis() {
+        return new LinkedHashMap<>(contextMillis);
+    }
+
+    /**
+     * @return milliseconds by bean name, slowest first
+     */
+    public synchronized Map<String, Long> getSlowestBeanMillis() {
+        List<Map.Entry<String, Long>> beans = new ArrayList<>(beanNanos.entrySet());
+        beans.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return beans.stream()
+                .limit(SLOWEST_BEANS)
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> TimeUnit.NANOSECONDS.toMillis(entry.getValue()),
+                        (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * @return milliseconds from the JVM start until the application was ready, -1 before that
+     */
+    public synchronized long getReadyMillis() {
+        return serverReadyMillis >= 0 ? serverReadyMillis : readyMillis;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jvmToFirstContextMs", firstContextStartedMillis);
+        result.put("contextsMs", getContextMillis());
+        result.put("slowestBeansMs", getSlowestBeanMillis());
+        result.put("contextsReadyMs", readyMillis);
+        result.put("serverReadyMs", serverReadyMillis);
+        result.put("readyMs", getReadyMillis());
+        return result;
+    }
+
+    private static class Creation {
+        final String beanName;
+        final long start;
+        long nested;
+
+        Creation(String beanName, long start) {
+            this.beanName = beanName;
+            this.start = start;
+        }
+    }
+}
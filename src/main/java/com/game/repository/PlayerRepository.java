@@ -3,8 +3,36 @@ package com.game.repository;
 import com.game.entity.Player;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface PlayerRepository extends JpaRepository<Player, Long>, JpaSpecificationExecutor<Player> {
+import java.util.Collection;
+import java.util.List;
 
+public interface PlayerRepository extends JpaRepository<Player, Long>, JpaSpecificationExecutor<Player>, PlayerRepositoryCustom {
+    String QUERY_CACHE_REGION = "player-queries";
+
+    // the in-memory structures are built from these and then kept current by change events only, so they are
+    // read in a read-write transaction of their own, which goes to the primary even when the caller is read-only
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("select p.id, p.name, p.title from Player p")
+    List<Object[]> findAllNamesAndTitles();
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("select p.id, p.race, p.profession, p.banned, p.level from Player p")
+    List<Object[]> findAllFacetValues();
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("select p.id, p.name, p.experience, p.level from Player p " +
+            "where (p.banned is null or p.banned = false) and p.experience is not null")
+    List<Object[]> findAllRanked();
+
+    @Query("select p.version, p.updated from Player p where p.id = :id")
+    List<Object[]> findVersionById(@Param("id") Long id);
+
+    @Query("select p.id from Player p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
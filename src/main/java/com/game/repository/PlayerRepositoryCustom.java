@@ -0,0 +1,75 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface PlayerRepositoryCustom {
+
+    /**
+     * Replaces {@link org.springframework.data.jpa.repository.JpaSpecificationExecutor#findAll(Specification, Pageable)}
+     * so that the page and its total count come from the query cache when {@code db.cache.enabled} is on.
+     */
+    Page<Player> findAll(Specification<Player> spec, Pageable pageable);
+
+    /**
+     * Replaces {@link org.springframework.data.jpa.repository.JpaSpecificationExecutor#count(Specification)}, cached
+     * like {@link #findAll(Specification, Pageable)}.
+     */
+    long count(Specification<Player> spec);
+
+    /**
+     * Reads one page plus a single look-ahead row, so {@link Slice#hasNext()} is known without a COUNT query.
+     */
+    Slice<Player> findSlice(Specification<Player> spec, Pageable pageable);
+
+    /**
+     * Writes every non-null field of {@code changes} to the row with the given id in one UPDATE statement
+     * and increments its version.
+     *
+     * @return the number of rows updated, 0 if there is no such player
+     */
+    int updateFields(Long id, Player changes);
+
+    /**
+     * Applies every patch like {@link #updateFields(Long, Player)}, as JDBC batches of {@code db.batchSize} rows,
+     * one per combination of patched fields. Ids without a row are skipped.
+     */
+    void updateFields(Map<Long, Player> changesById);
+
+    /**
+     * @return the number of rows deleted, 0 if there is no such player
+     */
+    int deletePlayerById(Long id);
+
+    /**
+     * Deletes the players with JDBC batches of {@code db.batchSize} rows. Ids without a row are skipped.
+     */
+    void deletePlayersByIds(Collection<Long> ids);
+
+    /**
+     * Inserts the players with JDBC batches of {@code db.batchSize} rows and sets the generated ids on them.
+     */
+    void insertBatch(List<Player> players);
+
+    /**
+     * Walks every matching player with a forward-only cursor, detaching each one after {@code action} has seen it,
+     * so memory use doesn't depend on the number of rows.
+     */
+    void scroll(Specification<Player> spec, Sort sort, int fetchSize, Consumer<Player> action);
+
+    /**
+     * Adds each delta to the player's experience, clamped to {@code 0..maxExperience}, and recomputes level and
+     * untilNextLevel in the same statement, so concurrent increments are never lost. Increments the version and sets
+     * {@code updated} of every touched row. Sent as one JDBC batch.
+     */
+    void addExperience(Map<Long, Integer> deltas, int maxExperience, long updated);
+}
@@ -0,0 +1,392 @@
+package com.game.repository;
+
+import com.game.entity.Player;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class PlayerRepositoryImpl implements PlayerRepositoryCustom {
+    private static final String INSERT = "insert into player " +
+            "(name, title, race, profession, birthday, banned, experience, level, untilNextLevel, version, updated) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "delete from player where id = ?";
+
+    // the same formulas as PlayerServiceImpl.calcLevel and calcuntilNextLevel; experience is assigned last because
+    // MySQL evaluates assignments left to right and would otherwise feed the new value into the later ones
+    private static final String NEW_EXPERIENCE = "least(greatest(experience + ?, 0), ?)";
+    private static final String NEW_LEVEL = "floor((sqrt(2500 + 200 * " + NEW_EXPERIENCE + ") - 50) / 100)";
+    private static final String ADD_EXPERIENCE = "update player set " +
+            "level = " + NEW_LEVEL + ", " +
+            "untilNextLevel = 50 * (" + NEW_LEVEL + " + 1) * (" + NEW_LEVEL + " + 2) - " + NEW_EXPERIENCE + ", " +
+            "experience = " + NEW_EXPERIENCE + ", " +
+            "version = version + 1, updated = ? " +
+            "where id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${db.batchSize:100}")
+    private int batchSize;
+
+    @Override
+    public Page<Player> findAll(Specification<Player> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> query = criteriaBuilder.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(toOrders(pageable.getSort(), root, criteriaBuilder));
+
+        TypedQuery<Player> typedQuery = cacheable(entityManager.createQuery(query));
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public long count(Specification<Player> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Player> root = query.from(Player.class);
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(criteriaBuilder.count(root));
+
+        return cacheable(entityManager.createQuery(query)).getSingleResult();
+    }
+
+    @Override
+    public Slice<Player> findSlice(Specification<Player> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> query = criteriaBuilder.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(toOrders(pageable.getSort(), root, criteriaBuilder));
+
+        TypedQuery<Player> typedQuery = cacheable(entityManager.createQuery(query));
+        typedQuery.setFirstResult((int) pageable.getOffset());
+        typedQuery.setMaxResults(pageable.getPageSize() + 1);
+        List<Player> content = typedQuery.getResultList();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public void scroll(Specification<Player> spec, Sort sort, int fetchSize, Consumer<Player> action) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> query = criteriaBuilder.createQuery(Player.class);
+        Root<Player> root = query.from(Player.class);
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(toOrders(sort, root, criteriaBuilder));
+
+        Query<Player> typedQuery = entityManager.createQuery(query).unwrap(Query.class);
+        typedQuery.setFetchSize(fetchSize);
+        typedQuery.setReadOnly(true);
+        typedQuery.setCacheMode(CacheMode.IGNORE);
+
+        Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults results = typedQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Player player = (Player) results.get(0);
+                action.accept(player);
+                session.detach(player);
+            }
+        }
+    }
+
+    @Override
+    public int updateFields(Long id, Player changes) {
+        Map<String, Object> columns = changedColumns(changes);
+        invalidateCaches(Collections.singleton(id));
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(updateStatement(columns.keySet()))) {
+                int index = 1;
+                for (Object value : columns.values()) {
+                    statement.setObject(index++, value);
+                }
+                statement.setLong(index, id);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void updateFields(Map<Long, Player> changesById) {
+        if (changesById.isEmpty()) {
+            return;
+        }
+        // patches of the same fields share a statement
+        Map<String, List<Map.Entry<Long, Map<String, Object>>>> byStatement = new LinkedHashMap<>();
+        for (Map.Entry<Long, Player> changes : changesById.entrySet()) {
+            Map<String, Object> columns = changedColumns(changes.getValue());
+            byStatement.computeIfAbsent(updateStatement(columns.keySet()), sql -> new ArrayList<>())
+                    .add(new AbstractMap.SimpleImmutableEntry<>(changes.getKey(), columns));
+        }
+
+        invalidateCaches(changesById.keySet());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            for (Map.Entry<String, List<Map.Entry<Long, Map<String, Object>>>> rows : byStatement.entrySet()) {
+                try (PreparedStatement statement = connection.prepareStatement(rows.getKey())) {
+                    int count = 0;
+                    for (Map.Entry<Long, Map<String, Object>> row : rows.getValue()) {
+                        int index = 1;
+                        for (Object value : row.getValue().values()) {
+                            statement.setObject(index++, value);
+                        }
+                        statement.setLong(index, row.getKey());
+                        statement.addBatch();
+
+                        if (++count % batchSize == 0) {
+                            statement.executeBatch();
+                        }
+                    }
+                    if (count % batchSize != 0) {
+                        statement.executeBatch();
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public int deletePlayerById(Long id) {
+        invalidateCaches(Collections.singleton(id));
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DELETE)) {
+                statement.setLong(1, id);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void deletePlayersByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        invalidateCaches(ids);
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DELETE)) {
+                int count = 0;
+                for (Long id : ids) {
+                    statement.setLong(1, id);
+                    statement.addBatch();
+
+                    if (++count % batchSize == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                if (count % batchSize != 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void insertBatch(List<Player> players) {
+        if (players.isEmpty()) {
+            return;
+        }
+        invalidateCaches(Collections.emptySet());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < players.size(); from += batchSize) {
+                    List<Player> batch = players.subList(from, Math.min(from + batchSize, players.size()));
+                    for (Player player : batch) {
+                        statement.setString(1, player.getName());
+                        statement.setString(2, player.getTitle());
+                        statement.setString(3, player.getRace().name());
+                        statement.setString(4, player.getProfession().name());
+                        statement.setDate(5, new java.sql.Date(player.getBirthday().getTime()));
+                        statement.setBoolean(6, player.getBanned());
+                        statement.setInt(7, player.getExperience());
+                        statement.setInt(8, player.getLevel());
+                        statement.setInt(9, player.getUntilNextLevel());
+                        statement.setLong(10, player.getVersion());
+                        statement.setLong(11, player.getUpdated());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Player player : batch) {
+                            if (!keys.next()) {
+                                throw new SQLException("Missing generated key for batched insert");
+                            }
+                            player.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void addExperience(Map<Long, Integer> deltas, int maxExperience, long updated) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        invalidateCaches(deltas.keySet());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(ADD_EXPERIENCE)) {
+                int count = 0;
+                for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+                    // NEW_EXPERIENCE appears five times, each taking the delta and the cap
+                    int index = 1;
+                    for (int i = 0; i < 5; i++) {
+                        statement.setInt(index++, delta.getValue());
+                        statement.setInt(index++, maxExperience);
+                    }
+                    statement.setLong(index++, updated);
+                    statement.setLong(index, delta.getKey());
+                    statement.addBatch();
+
+                    if (++count % batchSize == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                if (count % batchSize != 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the JDBC values of the non-null fields of {@code changes} by column, in a fixed order
+     */
+    private static Map<String, Object> changedColumns(Player changes) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        putIfPresent(columns, "name", changes.getName());
+        putIfPresent(columns, "title", changes.getTitle());
+        putIfPresent(columns, "race", changes.getRace() == null ? null : changes.getRace().name());
+        putIfPresent(columns, "profession", changes.getProfession() == null ? null : changes.getProfession().name());
+        putIfPresent(columns, "birthday", changes.getBirthday() == null ? null : new java.sql.Date(changes.getBirthday().getTime()));
+        putIfPresent(columns, "banned", changes.getBanned());
+        putIfPresent(columns, "experience", changes.getExperience());
+        putIfPresent(columns, "level", changes.getLevel());
+        putIfPresent(columns, "untilNextLevel", changes.getUntilNextLevel());
+        putIfPresent(columns, "updated", changes.getUpdated());
+        return columns;
+    }
+
+    private static void putIfPresent(Map<String, Object> columns, String column, Object value) {
+        if (value != null) {
+            columns.put(column, value);
+        }
+    }
+
+    private static String updateStatement(Collection<String> columns) {
+        StringBuilder sql = new StringBuilder("update player set ");
+        for (String column : columns) {
+            sql.append(column).append(" = ?, ");
+        }
+        return sql.append("version = version + 1 where id = ?").toString();
+    }
+
+    /**
+     * Only takes effect while the query cache is enabled.
+     */
+    private static <T> TypedQuery<T> cacheable(TypedQuery<T> query) {
+        query.setHint(QueryHints.CACHEABLE, true);
+        query.setHint(QueryHints.CACHE_REGION, PlayerRepository.QUERY_CACHE_REGION);
+        return query;
+    }
+
+    /**
+     * What Hibernate does around its own bulk statements, for the JDBC writes it doesn't see: cached query results
+     * over the player table are stale from now until the transaction completes, and the given players are evicted
+     * from the second-level cache now and again once it has, in case a concurrent read put the old row back. Unlike
+     * a bulk statement this leaves the other cached players alone.
+     * <p>
+     * The rest of the session bypasses the second-level cache, so re-reading the written rows neither returns the
+     * cached copies nor puts the uncommitted ones where other transactions would see them.
+     */
+    private void invalidateCaches(Collection<Long> ids) {
+        // as properties, because find() derives its cache mode from them rather than from the session's
+        entityManager.setProperty(AvailableSettings.JPA_SHARED_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+        entityManager.setProperty(AvailableSettings.JPA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor factory = session.getFactory();
+        String[] spaces = (String[]) factory.getMetamodel().entityPersister(Player.class).getQuerySpaces();
+        boolean queryCache = factory.getSessionFactoryOptions().isQueryCacheEnabled();
+        boolean entityCache = factory.getSessionFactoryOptions().isSecondLevelCacheEnabled() && !ids.isEmpty();
+        if (!queryCache && !entityCache) {
+            return;
+        }
+        if (queryCache) {
+            factory.getCache().getTimestampsCache().preInvalidate(spaces, session);
+        }
+        List<Long> evicted = new ArrayList<>(ids);
+        if (entityCache) {
+            evicted.forEach(id -> factory.getCache().evictEntityData(Player.class, id));
+        }
+        session.getActionQueue().registerProcess((success, completedSession) -> {
+            if (queryCache) {
+                factory.getCache().getTimestampsCache().invalidate(spaces, completedSession);
+            }
+            if (entityCache) {
+                evicted.forEach(id -> factory.getCache().evictEntityData(Player.class, id));
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.game.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one item of a bulk request, {@code index} is its position in the request body. A rejected item may
+ * carry the rule it broke in {@code error}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResult {
+    private final int index;
+    private final Long id;
+    private final int status;
+    private final String error;
+
+    private BulkResult(int index, Long id, int status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static BulkResult ok(int index, Long id) {
+        return new BulkResult(index, id, 200, null);
+    }
+
+    public static BulkResult badRequest(int index, Long id) {
+        return new BulkResult(index, id, 400, null);
+    }
+
+    public static BulkResult badRequest(int index, Long id, String error) {
+        return new BulkResult(index, id, 400, error);
+    }
+
+    public static BulkResult notFound(int index, Long id) {
+        return new BulkResult(index, id, 404, null);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
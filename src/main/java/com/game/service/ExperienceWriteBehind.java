@@ -0,0 +1,143 @@
+package com.game.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects experience deltas in memory, summed per player, and writes them with
+ * {@link PlayerService#addExperience(Map)} every {@code experience.writeBehind.flushMs}, so a player awarded
+ * experience a thousand times between flushes costs one UPDATE. Whatever is pending is written on shutdown.
+ * <p>
+ * The cap is applied to the sum, not to each delta: a player at the cap who gains and then loses experience
+ * between two flushes ends below the cap only in the immediate mode.
+ * <p>
+ * Accepted deltas live only in memory until they are flushed. On shutdown the last flush is retried for
+ * {@code experience.writeBehind.shutdownRetryMs}; whatever still can't be written is logged per player at ERROR,
+ * to be replayed by hand, and is otherwise lost, as is everything pending when the process dies.
+ */
+@Component
+public class ExperienceWriteBehind implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ExperienceWriteBehind.class);
+
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private PlayerService playerService;
+    private long flushMs;
+    private long shutdownRetryMs;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public void setPlayerService(PlayerService playerService) {
+        this.playerService = playerService;
+    }
+
+    @Value("${experience.writeBehind.flushMs:1000}")
+    public void setFlushMs(long flushMs) {
+        this.flushMs = flushMs;
+    }
+
+    @Value("${experience.writeBehind.shutdownRetryMs:10000}")
+    public void setShutdownRetryMs(long shutdownRetryMs) {
+        this.shutdownRetryMs = shutdownRetryMs;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "experience-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledFlush, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(flushMs * 2, TimeUnit.MILLISECONDS);
+
+        long deadline = System.currentTimeMillis() + shutdownRetryMs;
+        while (true) {
+            try {
+                flush();
+                return;
+            } catch (RuntimeException e) {
+                if (System.currentTimeMillis() + flushMs > deadline) {
+                    log.error("Experience flush failed on shutdown, deltas by player id not written: {}", new HashMap<>(pending), e);
+                    return;
+                }
+                log.warn("Experience flush failed on shutdown, {} players kept for another attempt", pending.size(), e);
+                Thread.sleep(flushMs);
+            }
+        }
+    }
+
+    public void add(Long id, int delta) {
+        pending.merge(id, (long) delta, Long::sum);
+        accepted.increment();
+    }
+
+    /**
+     * Writes everything pending. Deltas that fail to be written are put back for the next flush.
+     */
+    public synchronized void flush() {
+        Map<Long, Integer> batch = new HashMap<>();
+        for (Long id : pending.keySet()) {
+            Long sum = pending.remove(id);
+            if (sum != null) {
+                // beyond the cap in either direction the result is the same, and the sum then fits an int
+                batch.put(id, (int) Math.max(-PlayerServiceImpl.MAX_EXPERIENCE, Math.min(PlayerServiceImpl.MAX_EXPERIENCE, sum)));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            playerService.addExperience(batch);
+        } catch (RuntimeException e) {
+            failures.increment();
+            batch.forEach((id, delta) -> pending.merge(id, (long) delta, Long::sum));
+            throw e;
+        }
+        flushes.increment();
+        written.add(batch.size());
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pendingPlayers", pending.size());
+        result.put("acceptedDeltas", accepted.sum());
+        result.put("writtenPlayers", written.sum());
+        result.put("flushes", flushes.sum());
+        result.put("failedFlushes", failures.sum());
+        return result;
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule
+            log.warn("Experience flush failed, {} players kept for the next attempt", pending.size(), e);
+        }
+    }
+}
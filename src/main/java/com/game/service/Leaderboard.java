@@ -0,0 +1,197 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Players that aren't banned, ordered by experience (and so by level), highest first; equal experience is
+ * ordered by id. Built from the primary at startup and kept current through {@link PlayerChangeListener};
+ * rebuilds queue the changes that arrive meanwhile, like {@link PlayerTextIndex}.
+ */
+@Component
+public class Leaderboard implements PlayerChangeListener, InitializingBean {
+    private static final Comparator<Standing> ORDER = Comparator.<Standing>comparingInt(standing -> standing.experience)
+            .reversed()
+            .thenComparingLong(standing -> standing.id);
+
+    private final RankTree<Standing> tree = new RankTree<>(ORDER);
+    private final Map<Long, Standing> standings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuild = new Object();
+
+    private PlayerRepository playerRepository;
+    private List<Runnable> queued;
+
+    @Autowired
+    public void setPlayerRepository(PlayerRepository playerRepository) {
+        this.playerRepository = playerRepository;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    @Override
+    public void reload() {
+        synchronized (rebuild) {
+            lock.writeLock().lock();
+            try {
+                queued = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<Object[]> rows = null;
+            try {
+                rows = playerRepository.findAllRanked();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (rows != null) {
+                        load(rows);
+                        queued.forEach(Runnable::run);
+                    }
+                    queued = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void playerSaved(Player player) {
+        apply(() -> {
+            remove(player.getId());
+            if (!Boolean.TRUE.equals(player.getBanned()) && player.getExperience() != null) {
+                add(new Standing(player.getId(), player.getName(), player.getExperience(), player.getLevel()));
+            }
+        });
+    }
+
+    @Override
+    public void playerDeleted(Long id) {
+        apply(() -> remove(id));
+    }
+
+    public List<LeaderboardEntry> top(int count) {
+        lock.readLock().lock();
+        try {
+            return entries(0, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return null if the player is unknown or banned
+     */
+    public LeaderboardEntry rank(Long id) {
+        lock.readLock().lock();
+        try {
+            Standing standing = standings.get(id);
+            return standing == null ? null : standing.toEntry(tree.indexOf(standing));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the player together with up to {@code window} players ranked right above and below,
+     * or null if the player is unknown or banned
+     */
+    public List<LeaderboardEntry> around(Long id, int window) {
+        lock.readLock().lock();
+        try {
+            Standing standing = standings.get(id);
+            if (standing == null) {
+                return null;
+            }
+            int index = tree.indexOf(standing);
+            int from = Math.max(0, index - window);
+            return entries(from, index - from + window + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tree.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (queued != null) {
+                queued.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load(List<Object[]> rows) {
+        tree.clear();
+        standings.clear();
+        for (Object[] row : rows) {
+            add(new Standing((Long) row[0], (String) row[1], (Integer) row[2], (Integer) row[3]));
+        }
+    }
+
+    private List<LeaderboardEntry> entries(int from, int count) {
+        List<LeaderboardEntry> result = new ArrayList<>();
+        int index = from;
+        for (Standing standing : tree.range(from, count)) {
+            result.add(standing.toEntry(index++));
+        }
+        return result;
+    }
+
+    private void add(Standing standing) {
+        standings.put(standing.id, standing);
+        tree.add(standing);
+    }
+
+    private void remove(Long id) {
+        Standing previous = standings.remove(id);
+        if (previous != null) {
+            tree.remove(previous);
+        }
+    }
+
+    private static class Standing {
+        final long id;
+        final String name;
+        final int experience;
+        final Integer level;
+
+        Standing(long id, String name, int experience, Integer level) {
+            this.id = id;
+            this.name = name;
+            this.experience = experience;
+            this.level = level;
+        }
+
+        LeaderboardEntry toEntry(int index) {
+            return new LeaderboardEntry(index + 1, id, name, experience, level);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.game.service;
+
+public class LeaderboardEntry {
+    private final int rank;             // 1 for the most experienced player
+    private final Long id;
+    private final String name;
+    private final Integer experience;
+    private final Integer level;
+
+    LeaderboardEntry(int rank, Long id, String name, Integer experience, Integer level) {
+        this.rank = rank;
+        this.id = id;
+        this.name = name;
+        this.experience = experience;
+        this.level = level;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getExperience() {
+        return experience;
+    }
+
+    public Integer getLevel() {
+        return level;
+    }
+}
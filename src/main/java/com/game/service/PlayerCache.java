@@ -0,0 +1,94 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of players by id. Unknown ids are cached too, for a shorter time.
+ * Entries are detached copies, so callers are free to modify what they get. Changed players are evicted
+ * after commit and re-read on the next request.
+ */
+@Component
+public class PlayerCache implements PlayerChangeListener {
+    private final Cache<Long, Optional<Player>> cache;
+    private final LongAdder notFound = new LongAdder();
+
+    public PlayerCache(@Value("${cache.player.maxSize:100000}") long maxSize,
+                       @Value("${cache.player.ttlSeconds:60}") long ttlSeconds,
+                       @Value("${cache.player.negativeTtlSeconds:5}") long negativeTtlSeconds) {
+        long ttl = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        long negativeTtl = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<Long, Optional<Player>>() {
+                    @Override
+                    public long expireAfterCreate(Long key, Optional<Player> value, long currentTime) {
+                        return value.isPresent() ? ttl : negativeTtl;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long key, Optional<Player> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long key, Optional<Player> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return a copy of the cached or freshly loaded player, or null if there is no such player
+     */
+    public Player get(Long id, Function<Long, Optional<Player>> loader) {
+        Optional<Player> player = cache.get(id, key -> loader.apply(key).map(Player::new));
+        if (!player.isPresent()) {
+            notFound.increment();
+            return null;
+        }
+        return new Player(player.get());
+    }
+
+    @Override
+    public void playerSaved(Player player) {
+        cache.invalidate(player.getId());
+    }
+
+    @Override
+    public void playerDeleted(Long id) {
+        cache.invalidate(id);
+    }
+
+    @Override
+    public void reload() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> snapshot() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRatio", stats.hitRate());
+        result.put("notFound", notFound.sum());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
@@ -0,0 +1,19 @@
+package com.game.service;
+
+import com.game.entity.Player;
+
+/**
+ * In-memory structures derived from the player table. {@link PlayerServiceImpl} notifies every listener
+ * once the transaction that changed a player has committed.
+ */
+public interface PlayerChangeListener {
+
+    void playerSaved(Player player);
+
+    void playerDeleted(Long id);
+
+    /**
+     * Drops everything and rebuilds from the database, e.g. after the table was changed behind the service.
+     */
+    void reload();
+}
@@ -0,0 +1,94 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Filtered player counts keyed by the filter values. Every committed write bumps a version, and counts computed
+ * under an older version are treated as misses, so a count never outlives the data it was taken from.
+ */
+@Component
+public class PlayerCountCache implements PlayerChangeListener {
+    private final Cache<Object, Entry> cache;
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    public PlayerCountCache(@Value("${cache.count.maxSize:1000}") long maxSize,
+                            @Value("${cache.count.ttlSeconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public Integer get(Object filterKey, Supplier<Integer> loader) {
+        long current = version.get();
+        Entry entry = cache.getIfPresent(filterKey);
+        if (entry != null && entry.version == current) {
+            hits.increment();
+            return entry.count;
+        }
+        if (entry != null) {
+            stale.increment();
+        }
+        misses.increment();
+
+        // the version is read before counting: if a write commits meanwhile, the entry is already outdated
+        Integer count = loader.get();
+        cache.put(filterKey, new Entry(current, count));
+        return count;
+    }
+
+    @Override
+    public void playerSaved(Player player) {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void playerDeleted(Long id) {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void reload() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> snapshot() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", hitCount);
+        result.put("misses", missCount);
+        result.put("stale", stale.sum());
+        result.put("hitRatio", total == 0 ? 1.0 : (double) hitCount / total);
+        result.put("version", version.get());
+        return result;
+    }
+
+    private static class Entry {
+        final long version;
+        final Integer count;
+
+        Entry(long version, Integer count) {
+            this.version = version;
+            this.count = count;
+        }
+    }
+}
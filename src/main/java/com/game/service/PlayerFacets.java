@@ -0,0 +1,199 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Player counts per race, profession, ban state and level band, kept in memory and adjusted on every committed
+ * write, so reading them costs the same whatever the size of the table. They are counted from the primary at
+ * startup; rebuilds queue the changes that arrive meanwhile, like {@link PlayerTextIndex}.
+ * <p>
+ * Listeners only see the new state of a player, so the facet values each player was counted under are kept
+ * alongside the counters, packed into one int: race and profession ordinals + 1 in the low bytes (0 for null),
+ * then the ban state (0 null, 1 false, 2 true), then the level band.
+ */
+@Component
+public class PlayerFacets implements PlayerChangeListener, InitializingBean {
+    private static final int BANNED_SHIFT = 16;
+    private static final int BAND_SHIFT = 18;
+
+    private final Map<Long, Integer> counted = new HashMap<>();
+    private final long[] races = new long[Race.values().length];
+    private final long[] professions = new long[Profession.values().length];
+    private final long[] banned = new long[2];
+    private final TreeMap<Integer, Long> levelBands = new TreeMap<>();
+    private final Object rebuild = new Object();
+
+    private PlayerRepository playerRepository;
+    private int levelBandWidth;
+    private List<Runnable> queued;
+
+    @Autowired
+    public void setPlayerRepository(PlayerRepository playerRepository) {
+        this.playerRepository = playerRepository;
+    }
+
+    @Value("${facets.levelBandWidth:10}")
+    public void setLevelBandWidth(int levelBandWidth) {
+        this.levelBandWidth = levelBandWidth;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    @Override
+    public void reload() {
+        synchronized (rebuild) {
+            synchronized (this) {
+                queued = new ArrayList<>();
+            }
+
+            List<Object[]> rows = null;
+            try {
+                rows = playerRepository.findAllFacetValues();
+            } finally {
+                synchronized (this) {
+                    if (rows != null) {
+                        load(rows);
+                        queued.forEach(Runnable::run);
+                    }
+                    queued = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void playerSaved(Player player) {
+        int state = pack(player.getRace(), player.getProfession(), player.getBanned(), player.getLevel());
+        apply(() -> {
+            Integer previous = counted.put(player.getId(), state);
+            if (previous != null) {
+                if (previous == state) {
+                    return;
+                }
+                add(previous, -1);
+            }
+            add(state, 1);
+        });
+    }
+
+    @Override
+    public synchronized void playerDeleted(Long id) {
+        apply(() -> {
+            Integer previous = counted.remove(id);
+            if (previous != null) {
+                add(previous, -1);
+            }
+        });
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Long> raceCounts = new LinkedHashMap<>();
+        for (Race race : Race.values()) {
+            raceCounts.put(race.name(), races[race.ordinal()]);
+        }
+
+        Map<String, Long> professionCounts = new LinkedHashMap<>();
+        for (Profession profession : Profession.values()) {
+            professionCounts.put(profession.name(), professions[profession.ordinal()]);
+        }
+
+        Map<String, Long> bannedCounts = new LinkedHashMap<>();
+        bannedCounts.put("false", banned[0]);
+        bannedCounts.put("true", banned[1]);
+
+        Map<String, Long> levelCounts = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> band : levelBands.entrySet()) {
+            int from = band.getKey() * levelBandWidth;
+            levelCounts.put(from + "-" + (from + levelBandWidth - 1), band.getValue());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", (long) counted.size());
+        result.put("race", raceCounts);
+        result.put("profession", professionCounts);
+        result.put("banned", bannedCounts);
+        result.put("level", levelCounts);
+        return result;
+    }
+
+    private void apply(Runnable change) {
+        change.run();
+        if (queued != null) {
+            queued.add(change);
+        }
+    }
+
+    private void load(List<Object[]> rows) {
+        counted.clear();
+        Arrays.fill(races, 0);
+        Arrays.fill(professions, 0);
+        Arrays.fill(banned, 0);
+        levelBands.clear();
+
+        for (Object[] row : rows) {
+            int state = pack((Race) row[1], (Profession) row[2], (Boolean) row[3], (Integer) row[4]);
+            counted.put((Long) row[0], state);
+            add(state, 1);
+        }
+    }
+
+    private void add(int state, int delta) {
+        int race = state & 0xFF;
+        int profession = (state >>> 8) & 0xFF;
+        int ban = (state >>> BANNED_SHIFT) & 0x3;
+        int band = state >>> BAND_SHIFT;
+
+        if (race != 0) {
+            races[race - 1] += delta;
+        }
+        if (profession != 0) {
+            professions[profession - 1] += delta;
+        }
+        if (ban != 0) {
+            banned[ban - 1] += delta;
+        }
+        if (band != 0) {
+            long count = levelBands.getOrDefault(band - 1, 0L) + delta;
+            if (count == 0) {
+                levelBands.remove(band - 1);
+            } else {
+                levelBands.put(band - 1, count);
+            }
+        }
+    }
+
+    private int pack(Race race, Profession profession, Boolean isBanned, Integer level) {
+        int state = 0;
+        if (race != null) {
+            state |= race.ordinal() + 1;
+        }
+        if (profession != null) {
+            state |= (profession.ordinal() + 1) << 8;
+        }
+        if (isBanned != null) {
+            state |= (isBanned ? 2 : 1) << BANNED_SHIFT;
+        }
+        if (level != null) {
+            state |= (level / levelBandWidth + 1) << BAND_SHIFT;
+        }
+        return state;
+    }
+}
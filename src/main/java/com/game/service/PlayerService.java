@@ -1,20 +1,32 @@
 package com.game.service;
 
-import com.game.controller.PlayerOrder;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface PlayerService {
     Page<Player> getPlayersList(Specification specification, Pageable sort);
+    Slice<Player> getPlayersSlice(Specification<Player> specification, Pageable pageable);
+    void exportPlayers(Specification<Player> specification, Sort sort, Consumer<Player> action);
     Player getPlayerById(Long id);
+    Player getPlayerVersion(Long id);
     Player createPlayer(Player player);
     Player updatePlayer(Long id, Player player);
     void deletePlayer(Long id);
+    Player addExperience(Long id, Integer delta);
+    List<Player> addExperience(Map<Long, Integer> deltas);
+    void checkExperienceDelta(Integer delta);
+    List<BulkResult> createPlayers(List<Player> players);
+    List<BulkResult> updatePlayers(List<Player> players);
+    List<BulkResult> deletePlayers(List<Long> ids);
     Integer getPlayerCount(Specification<Player> spec);
 
     Specification<Player> selectByName(String name);
@@ -25,6 +37,7 @@ public interface PlayerService {
     Specification<Player> selectByBan(Boolean banned);
     Specification<Player> selectByExp(Integer minExperience, Integer maxExperience);
     Specification<Player> selectByLevel(Integer minLevel, Integer maxLevel);
+    Specification<Player> selectAfter(String fieldName, Comparable<?> value, Long id);
 
     Long checkId(String id);
 
@@ -5,49 +5,158 @@ import com.game.NotFoundException;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
+import com.game.metrics.Timed;
 import com.game.repository.PlayerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
 @Service
+@Timed
 @Transactional
 public class PlayerServiceImpl implements PlayerService {
+    public static final int MAX_EXPERIENCE = 10000000;
+
     @Autowired
     PlayerRepository playerRepository;
 
+    @Autowired
+    PlayerCache playerCache;
+
+    @Autowired
+    PlayerTextIndex playerTextIndex;
+
+    @Autowired
+    List<PlayerChangeListener> playerChangeListeners;
+
+    @Value("${bulk.maxItems:10000}")
+    int maxBulkItems;
+
+    @Value("${export.fetchSize:1000}")
+    int exportFetchSize;
+
     @Override
+    @Transactional(readOnly = true)
     public Page<Player> getPlayersList(Specification specification, Pageable sort) {
 
         return playerRepository.findAll(specification, sort);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Player> getPlayersSlice(Specification<Player> specification, Pageable pageable) {
+        return playerRepository.findSlice(specification, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPlayers(Specification<Player> specification, Sort sort, Consumer<Player> action) {
+        playerRepository.scroll(specification, sort, exportFetchSize, action);
+    }
+
+    /**
+     * Not read-only, so a cache miss reads the primary: just after a write evicted the entry, a lagging replica
+     * would put the old row back into the cache for its whole TTL. Cache hits take no connection either way.
+     */
     @Override
     public Player getPlayerById(Long id) {
-        if (!playerRepository.existsById(id)) {
+        Player player = playerCache.get(id, playerRepository::findById);
+        if (player == null) {
             throw new NotFoundException();
         }
 
-        return playerRepository.findById(id).get();
+        return player;
+    }
+
+    /**
+     * @return a player with only id, version and updated set, read from the row without loading the entity; never
+     * from the cache, whose copy may be older than the row
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Player getPlayerVersion(Long id) {
+        List<Object[]> rows = playerRepository.findVersionById(id);
+        if (rows.isEmpty()) {
+            throw new NotFoundException();
+        }
+        Player player = new Player();
+        player.setId(id);
+        player.setVersion((Long) rows.get(0)[0]);
+        player.setUpdated((Long) rows.get(0)[1]);
+        return player;
     }
 
     @Override
     public Player createPlayer(Player player) {
+        prepareNewPlayer(player);
+
+        Player savedPlayer = playerRepository.save(player);
+        afterCommit(listener -> listener.playerSaved(savedPlayer));
+        return savedPlayer;
+    }
+
+    @Override
+    public List<BulkResult> createPlayers(List<Player> players) {
+        checkBulkSize(players);
+        List<BulkResult> results = new ArrayList<>();
+        List<Player> accepted = new ArrayList<>();
+
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            try {
+                prepareNewPlayer(player);
+                player.setId(null);
+                accepted.add(player);
+                results.add(null);
+            } catch (BadRequestException e) {
+                results.add(BulkResult.badRequest(i, null, e.getMessage()));
+            }
+        }
+
+        playerRepository.insertBatch(accepted);
+
+        int next = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                Player player = accepted.get(next++);
+                results.set(i, BulkResult.ok(i, player.getId()));
+            }
+        }
+        afterCommit(listener -> accepted.forEach(listener::playerSaved));
+        return results;
+    }
+
+    private void prepareNewPlayer(Player player) {
         if (player.getName() == null || player.getTitle() == null || player.getRace() == null || player.getProfession() == null ||
                 player.getBirthday() == null || player.getExperience() == null) {
-            throw new BadRequestException();
+            throw new BadRequestException("name, title, race, profession, birthday and experience are required");
         }
         checkPlayerName(player);
         checkPlayerTitle(player);
@@ -63,8 +172,23 @@ public class PlayerServiceImpl implements PlayerService {
         int untilNextLevel = calcuntilNextLevel(level, player.getExperience());
         player.setLevel(level);
         player.setUntilNextLevel(untilNextLevel);
+        player.setVersion(0L);
+        player.setUpdated(System.currentTimeMillis());
+    }
 
-        return playerRepository.save(player);
+    private void checkBulkId(Long id) {
+        if (id == null) {
+            throw new BadRequestException("missing id");
+        }
+        if (id <= 0) {
+            throw new BadRequestException("id must be positive");
+        }
+    }
+
+    private void checkBulkSize(List<?> items) {
+        if (items == null || items.size() > maxBulkItems) {
+            throw new BadRequestException();
+        }
     }
 
     public Long checkId(String id) {
@@ -92,91 +216,267 @@ public class PlayerServiceImpl implements PlayerService {
 
     private void checkPlayerName(Player player) {
         if (player.getName().length() == 0 || player.getName().length() > 12) {
-            throw new BadRequestException();
+            throw new BadRequestException("name must be 1 to 12 characters long");
         }
     }
 
     private void checkPlayerTitle(Player player) {
         if (player.getTitle().length() > 30) {
-            throw new BadRequestException();
+            throw new BadRequestException("title must be at most 30 characters long");
         }
     }
 
     private void checkPlayerExperience(Player player) {
-        if (player.getExperience() < 0 || player.getExperience() > 10000000) {
-            throw new BadRequestException();
+        if (player.getExperience() < 0 || player.getExperience() > MAX_EXPERIENCE) {
+            throw new BadRequestException("experience must be 0 to " + MAX_EXPERIENCE);
         }
     }
 
     private void checkPlayerBirthday(Player player) {
         if (player.getBirthday().getTime() < 0 || player.getBirthday().getYear() + 1900 < 2000 || player.getBirthday().getYear() + 1900 > 3000) {
-            throw new BadRequestException();
+            throw new BadRequestException("birthday must be in the years 2000 to 3000");
         }
     }
 
-    private int calcLevel(int exp) {
+    public static int calcLevel(int exp) {
         return (int) ((Math.sqrt(2500 + 200 * exp) - 50) / 100);
     }
 
-    private int calcuntilNextLevel(int level, int exp) {
+    public static int calcuntilNextLevel(int level, int exp) {
         return 50 * (level + 1) * (level + 2) - exp;
     }
 
     @Override
     public Player updatePlayer(Long id, Player player) {
+        Player changes;
+        try {
+            changes = checkChanges(player);
+        } catch (BadRequestException e) {
+            // an unknown id is reported before an invalid patch
+            if (!playerRepository.existsById(id)) {
+                throw new NotFoundException();
+            }
+            throw e;
+        }
+        if (changes == null) {
+            return getPlayerById(id);
+        }
 
-        if (!playerRepository.existsById(id)) {
+        if (playerRepository.updateFields(id, changes) == 0) {
             throw new NotFoundException();
         }
-        Player updatedPlayer = getPlayerById(id);
+        // the row as the UPDATE left it, so the response and the listeners see the stored version and any
+        // experience added concurrently instead of a patched copy of an older state
+        Player updatedPlayer = new Player(playerRepository.findById(id).orElseThrow(NotFoundException::new));
+        if (changes.getBirthday() != null) {
+            // stored as a DATE, the response keeps the instant that was sent
+            updatedPlayer.setBirthday(changes.getBirthday());
+        }
+        afterCommit(listener -> listener.playerSaved(updatedPlayer));
+        return updatedPlayer;
+    }
+
+    @Override
+    public List<BulkResult> updatePlayers(List<Player> players) {
+        checkBulkSize(players);
+        List<BulkResult> results = new ArrayList<>();
+        Map<Long, Player> changesById = new LinkedHashMap<>();
+
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            try {
+                checkBulkId(player.getId());
+                // a repeated id is refused rather than letting one patch silently replace the other
+                if (changesById.containsKey(player.getId())) {
+                    throw new BadRequestException("duplicate id");
+                }
+                changesById.put(player.getId(), checkChanges(player));
+                results.add(null);
+            } catch (BadRequestException e) {
+                results.add(BulkResult.badRequest(i, player.getId(), e.getMessage()));
+            }
+        }
+
+        // only the patched columns are written, so experience added concurrently is never overwritten
+        Map<Long, Player> patches = new LinkedHashMap<>();
+        changesById.forEach((id, changes) -> {
+            if (changes != null) {
+                patches.put(id, changes);
+            }
+        });
+        playerRepository.updateFields(patches);
+
+        // one SELECT for all rows, as stored after the UPDATEs; ids missing here have no player
+        Map<Long, Player> stored = new HashMap<>();
+        for (Player player : playerRepository.findAllById(changesById.keySet())) {
+            stored.put(player.getId(), player);
+        }
+
+        List<Player> updated = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) != null) {
+                continue;
+            }
+            Long id = players.get(i).getId();
+            Player player = stored.get(id);
+            if (player == null) {
+                results.set(i, BulkResult.notFound(i, id));
+                continue;
+            }
+            if (patches.containsKey(id)) {
+                updated.add(player);
+            }
+            results.set(i, BulkResult.ok(i, id));
+        }
+
+        afterCommit(listener -> updated.forEach(listener::playerSaved));
+        return results;
+    }
+
+    /**
+     * @return the validated fields to change, null if the patch is empty
+     */
+    private Player checkChanges(Player player) {
+        Player changes = new Player();
+        boolean changed = false;
 
         if (player.getName() != null) {
             checkPlayerName(player);
-            updatedPlayer.setName(player.getName());
+            changes.setName(player.getName());
+            changed = true;
         }
 
         if (player.getTitle() != null) {
             checkPlayerTitle(player);
-            updatedPlayer.setTitle(player.getTitle());
+            changes.setTitle(player.getTitle());
+            changed = true;
         }
 
         if (player.getRace() != null) {
-            updatedPlayer.setRace(player.getRace());
+            changes.setRace(player.getRace());
+            changed = true;
         }
 
         if (player.getProfession() != null) {
-            updatedPlayer.setProfession(player.getProfession());
+            changes.setProfession(player.getProfession());
+            changed = true;
         }
 
         if (player.getBirthday() != null) {
             checkPlayerBirthday(player);
-            updatedPlayer.setBirthday(player.getBirthday());
+            changes.setBirthday(player.getBirthday());
+            changed = true;
         }
 
         if (player.getBanned() != null) {
-            updatedPlayer.setBanned(player.getBanned());
+            changes.setBanned(player.getBanned());
+            changed = true;
         }
 
         if (player.getExperience() != null) {
             checkPlayerExperience(player);
             int level = calcLevel(player.getExperience());
             int untilNextLevel = calcuntilNextLevel(level, player.getExperience());
-            updatedPlayer.setExperience(player.getExperience());
-            updatedPlayer.setLevel(level);
-            updatedPlayer.setUntilNextLevel(untilNextLevel);
+            changes.setExperience(player.getExperience());
+            changes.setLevel(level);
+            changes.setUntilNextLevel(untilNextLevel);
+            changed = true;
+        }
+
+        if (!changed) {
+            return null;
         }
+        changes.setUpdated(System.currentTimeMillis());
+        return changes;
+    }
 
-        return playerRepository.save(updatedPlayer);
+    @Override
+    public Player addExperience(Long id, Integer delta) {
+        checkExperienceDelta(delta);
+        List<Player> players = addExperience(Collections.singletonMap(id, delta));
+        if (players.isEmpty()) {
+            throw new NotFoundException();
+        }
+        return players.get(0);
+    }
+
+    @Override
+    public List<Player> addExperience(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        playerRepository.addExperience(deltas, MAX_EXPERIENCE, System.currentTimeMillis());
+
+        // rows deleted in the meantime are simply missing here
+        List<Player> players = playerRepository.findAllById(deltas.keySet());
+        afterCommit(listener -> players.forEach(listener::playerSaved));
+        return players;
+    }
+
+    @Override
+    public void checkExperienceDelta(Integer delta) {
+        if (delta == null || delta < -MAX_EXPERIENCE || delta > MAX_EXPERIENCE) {
+            throw new BadRequestException();
+        }
     }
 
     @Override
     public void deletePlayer(Long id) {
-        if (!playerRepository.existsById(id)) {
+        if (playerRepository.deletePlayerById(id) == 0) {
             throw new NotFoundException();
         }
-        playerRepository.deleteById(id);
+        afterCommit(listener -> listener.playerDeleted(id));
+    }
+
+    @Override
+    public List<BulkResult> deletePlayers(List<Long> ids) {
+        checkBulkSize(ids);
+        List<Long> valid = new ArrayList<>();
+        for (Long id : ids) {
+            if (id != null && id > 0) {
+                valid.add(id);
+            }
+        }
+
+        Set<Long> existing = valid.isEmpty() ? Collections.emptySet() : new HashSet<>(playerRepository.findExistingIds(valid));
+        if (!existing.isEmpty()) {
+            playerRepository.deletePlayersByIds(existing);
+        }
+
+        List<BulkResult> results = new ArrayList<>();
+        Set<Long> deleted = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null || id <= 0) {
+                results.add(BulkResult.badRequest(i, id));
+            } else if (existing.contains(id) && deleted.add(id)) {
+                results.add(BulkResult.ok(i, id));
+            } else {
+                results.add(BulkResult.notFound(i, id));
+            }
+        }
+
+        afterCommit(listener -> deleted.forEach(listener::playerDeleted));
+        return results;
     }
 
+    private void afterCommit(Consumer<PlayerChangeListener> event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            playerChangeListeners.forEach(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                playerChangeListeners.forEach(event);
+            }
+        });
+    }
+
+    /**
+     * Not read-only, like {@link #getPlayerById}: counts are only taken to fill {@link PlayerCountCache}, and one
+     * taken on a lagging replica right after a write would be cached under the new version.
+     */
     @Override
     public Integer getPlayerCount(Specification<Player> spec) {
         return (int) playerRepository.count(spec);
@@ -190,7 +490,8 @@ public class PlayerServiceImpl implements PlayerService {
                 if (name == null) {
                     return null;
                 }
-                return criteriaBuilder.like(root.get("name"), "%" + name + "%");
+                Set<Long> candidates = playerTextIndex.nameCandidates(name);
+                return withCandidates(candidates, criteriaBuilder.like(root.get("name"), "%" + name + "%"), root, criteriaBuilder);
             }
         };
     }
@@ -203,11 +504,23 @@ public class PlayerServiceImpl implements PlayerService {
                 if (title == null) {
                     return null;
                 }
-                return criteriaBuilder.like(root.get("title"), "%" + title + "%");
+                Set<Long> candidates = playerTextIndex.titleCandidates(title);
+                return withCandidates(candidates, criteriaBuilder.like(root.get("title"), "%" + title + "%"), root, criteriaBuilder);
             }
         };
     }
 
+    // the trigram index only narrows the rows down, LIKE still decides the exact match
+    private Predicate withCandidates(Set<Long> candidates, Predicate like, Root<Player> root, CriteriaBuilder criteriaBuilder) {
+        if (candidates == null) {
+            return like;
+        }
+        if (candidates.isEmpty()) {
+            return criteriaBuilder.disjunction();
+        }
+        return criteriaBuilder.and(root.get("id").in(candidates), like);
+    }
+
     @Override
     public Specification<Player> selectByRace(Race race) {
         return new Specification<Player>() {
@@ -320,5 +633,30 @@ public class PlayerServiceImpl implements PlayerService {
             }
         };
     }
-}
 
+    @Override
+    public Specification<Player> selectAfter(String fieldName, Comparable<?> value, Long id) {
+        return new Specification<Player>() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Predicate toPredicate(Root<Player> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+                if (id == null) {
+                    return null;
+                }
+                Predicate afterId = criteriaBuilder.greaterThan(root.<Long>get("id"), id);
+                if ("id".equals(fieldName)) {
+                    return afterId;
+                }
+                // MySQL and H2 sort nulls before every value in ascending order, so a null key is followed
+                // by the remaining nulls and then by all rows that have a value
+                Expression<Comparable> field = root.get(fieldName);
+                if (value == null) {
+                    return criteriaBuilder.or(criteriaBuilder.and(criteriaBuilder.isNull(field), afterId),
+                            criteriaBuilder.isNotNull(field));
+                }
+                return criteriaBuilder.or(criteriaBuilder.greaterThan(field, (Comparable) value),
+                        criteriaBuilder.and(criteriaBuilder.equal(field, value), afterId));
+            }
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram indexes over {@code Player.name} and {@code Player.title}, used to turn {@code LIKE '%x%'} searches
+ * into an id lookup. Built from the primary at startup and kept current through {@link PlayerChangeListener}.
+ * <p>
+ * The table is read without holding the lock, so writes don't wait for a rebuild. Changes committed meanwhile
+ * go to the old index and are queued, then replayed on the new one: the read may or may not have seen them.
+ */
+@Component
+public class PlayerTextIndex implements PlayerChangeListener, InitializingBean {
+    private final TrigramIndex names = new TrigramIndex();
+    private final TrigramIndex titles = new TrigramIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuild = new Object();
+
+    private PlayerRepository playerRepository;
+    private int maxCandidates;
+    private List<Runnable> queued;
+
+    @Autowired
+    public void setPlayerRepository(PlayerRepository playerRepository) {
+        this.playerRepository = playerRepository;
+    }
+
+    @Value("${search.trigram.maxCandidates:1000}")
+    public void setMaxCandidates(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    @Override
+    public void reload() {
+        synchronized (rebuild) {
+            lock.writeLock().lock();
+            try {
+                queued = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            List<Object[]> rows = null;
+            try {
+                rows = playerRepository.findAllNamesAndTitles();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    // if the read failed, the old index already has every change
+                    if (rows != null) {
+                        load(rows);
+                        queued.forEach(Runnable::run);
+                    }
+                    queued = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void playerSaved(Player player) {
+        apply(() -> {
+            names.put(player.getId(), player.getName());
+            titles.put(player.getId(), player.getTitle());
+        });
+    }
+
+    @Override
+    public void playerDeleted(Long id) {
+        apply(() -> {
+            names.remove(id);
+            titles.remove(id);
+        });
+    }
+
+    /**
+     * @return ids of players whose name may contain {@code fragment}, or null if the index can't narrow
+     * the search down (fragment shorter than three characters or too many matches)
+     */
+    public Set<Long> nameCandidates(String fragment) {
+        return candidates(names, fragment);
+    }
+
+    public Set<Long> titleCandidates(String fragment) {
+        return candidates(titles, fragment);
+    }
+
+    private Set<Long> candidates(TrigramIndex index, String fragment) {
+        lock.readLock().lock();
+        try {
+            return index.candidates(fragment, maxCandidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (queued != null) {
+                queued.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load(List<Object[]> rows) {
+        names.clear();
+        titles.clear();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            names.put(id, (String) row[1]);
+            titles.put(id, (String) row[2]);
+        }
+    }
+}
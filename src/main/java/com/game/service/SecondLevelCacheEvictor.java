@@ -0,0 +1,35 @@
+package com.game.service;
+
+import com.game.entity.Player;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Empties Hibernate's second-level and query caches on a reload. Writes made by {@link PlayerServiceImpl} keep
+ * them current by themselves, including the JDBC ones of the repository.
+ */
+@Component
+public class SecondLevelCacheEvictor implements PlayerChangeListener {
+    private Cache cache;
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    @Override
+    public void playerSaved(Player player) {
+    }
+
+    @Override
+    public void playerDeleted(Long id) {
+    }
+
+    @Override
+    public void reload() {
+        cache.evictAllRegions();
+    }
+}
@@ -0,0 +1,103 @@
+package com.game.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Case- and accent-insensitive substring index: every value is split into overlapping three-character grams and
+ * each gram points to the ids containing it. Case and diacritics are folded the way MySQL's {@code _ci} collations
+ * fold them, so an accented value is still a candidate for a plain fragment. Not thread-safe, see {@link PlayerTextIndex}.
+ */
+class TrigramIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, String> values = new HashMap<>();
+
+    void put(Long id, String value) {
+        remove(id);
+        if (value == null) {
+            return;
+        }
+        values.put(id, value);
+        for (String trigram : trigrams(value)) {
+            postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    void remove(Long id) {
+        String value = values.remove(id);
+        if (value == null) {
+            return;
+        }
+        for (String trigram : trigrams(value)) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        values.clear();
+    }
+
+    /**
+     * @return ids whose value may contain {@code fragment}, or null if the fragment is too short to be looked up,
+     * holds a {@code LIKE} wildcard or escape character, which the grams can't represent, or even its rarest gram
+     * occurs in more than {@code maxCandidates} values
+     */
+    Set<Long> candidates(String fragment, int maxCandidates) {
+        if (fragment.indexOf('%') >= 0 || fragment.indexOf('_') >= 0 || fragment.indexOf('\\') >= 0) {
+            return null;
+        }
+        Set<String> trigrams = trigrams(fragment);
+        if (trigrams.isEmpty()) {
+            return null;
+        }
+
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String trigram : trigrams) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        // the intersection is never larger than the rarest gram's ids, so a common fragment is given up before copying
+        if (lists.get(0).size() > maxCandidates) {
+            return null;
+        }
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static Set<String> trigrams(String value) {
+        String normalized = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            result.add(normalized.substring(i, i + 3));
+        }
+        return result;
+    }
+}
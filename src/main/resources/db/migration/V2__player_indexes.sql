@@ -0,0 +1,12 @@
+-- equality filters, most selective first; banned is appended so it is checked in the index
+CREATE INDEX idx_player_race_profession ON player (race, profession, banned);
+CREATE INDEX idx_player_profession_banned ON player (profession, banned);
+
+-- range filters and PlayerOrder sorts; id is the tie-breaker of keyset pagination
+CREATE INDEX idx_player_level ON player (level, id);
+CREATE INDEX idx_player_experience ON player (experience, id);
+CREATE INDEX idx_player_birthday ON player (birthday, id);
+CREATE INDEX idx_player_name ON player (name, id);
+
+-- banned on its own is a two-valued column, it only pays off in front of a range
+CREATE INDEX idx_player_banned_level ON player (banned, level);
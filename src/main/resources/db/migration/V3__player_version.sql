@@ -0,0 +1,3 @@
+-- bumped on every change of a player, backs the ETag and Last-Modified headers of /rest/players
+ALTER TABLE player ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE player ADD COLUMN updated BIGINT NULL;
@@ -0,0 +1,69 @@
+package com.game.controller;
+
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AsyncExecutionTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void overloadIsRejectedWithRetryAfter() throws Exception {
+        ThreadPoolTaskExecutor executor = context.getBean("dbExecutor", ThreadPoolTaskExecutor.class);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            fill(executor, release);
+
+            mockMvc.perform(get("/rest/players/1"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+        } finally {
+            release.countDown();
+        }
+
+        awaitIdle(executor);
+
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isOk());
+    }
+
+    // occupies every thread and queue slot until the latch is released
+    private void fill(ThreadPoolTaskExecutor executor, CountDownLatch release) throws InterruptedException {
+        // requests of earlier tests may still be finishing and would free slots while the request is sent
+        awaitIdle(executor);
+        submitUntilRejected(executor, release);
+        // idle threads take their tasks from the queue only after waking up, which frees queue slots again
+        while (executor.getActiveCount() < executor.getMaxPoolSize()) {
+            Thread.sleep(10);
+        }
+        submitUntilRejected(executor, release);
+    }
+
+    private void awaitIdle(ThreadPoolTaskExecutor executor) throws InterruptedException {
+        while (executor.getActiveCount() > 0 || !executor.getThreadPoolExecutor().getQueue().isEmpty()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void submitUntilRejected(ThreadPoolTaskExecutor executor, CountDownLatch release) {
+        try {
+            while (true) {
+                executor.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        } catch (RejectedExecutionException e) {
+            // full
+        }
+    }
+}
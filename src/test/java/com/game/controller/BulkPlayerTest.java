@@ -0,0 +1,119 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkPlayerTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void createPlayersReportsEachItem() throws Exception {
+        String body = "[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.EMPTY_NAME_JSON + "," + TestsHelper.NORMAL_JSON + "]";
+        String contentAsString = mockMvc.perform(post("/rest/players/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode results = mapper.readTree(contentAsString);
+
+        assertEquals("Ответ должен содержать результат для каждого элемента запроса.", 3, results.size());
+        assertEquals("Корректный игрок должен быть создан.", 200, results.get(0).get("status").asInt());
+        assertEquals("Созданному игроку должен быть присвоен следующий id.", 41L, results.get(0).get("id").asLong());
+        assertEquals("Некорректный игрок должен быть отклонен.", 400, results.get(1).get("status").asInt());
+        assertEquals("Корректный игрок должен быть создан.", 42L, results.get(2).get("id").asLong());
+
+        String playerAsString = mockMvc.perform(get("/rest/players/42"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(playerAsString, PlayerInfoTest.class);
+        assertEquals("Созданный игрок должен быть доступен по id.", "Амарылис", actual.name);
+
+        String count = mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Должно быть создано ровно два игрока.", "42", count);
+    }
+
+    //test2
+    @Test
+    public void updatePlayersReportsEachItem() throws Exception {
+        String body = "[{\"id\": 14, \"name\": \"Пакет\", \"experience\": 1000}," +
+                "{\"id\": 1000, \"name\": \"Никто\"}," +
+                "{\"id\": 15, \"experience\": -1}]";
+        String contentAsString = mockMvc.perform(post("/rest/players/bulk/update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode results = mapper.readTree(contentAsString);
+
+        assertEquals("Существующий игрок должен быть обновлен.", 200, results.get(0).get("status").asInt());
+        assertEquals("Для несуществующего игрока должен возвращаться код 404.", 404, results.get(1).get("status").asInt());
+        assertEquals("Для некорректных данных должен возвращаться код 400.", 400, results.get(2).get("status").asInt());
+
+        String playerAsString = mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(playerAsString, PlayerInfoTest.class);
+        assertEquals("Имя должно быть обновлено.", "Пакет", actual.name);
+        assertEquals("Уровень должен быть пересчитан по опыту.", 4, (int) actual.level);
+    }
+
+    //test3
+    @Test
+    public void deletePlayersReportsEachItem() throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/players/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2, 1000, 0]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode results = mapper.readTree(contentAsString);
+
+        assertEquals("Существующий игрок должен быть удален.", 200, results.get(0).get("status").asInt());
+        assertEquals("Существующий игрок должен быть удален.", 200, results.get(1).get("status").asInt());
+        assertEquals("Для несуществующего игрока должен возвращаться код 404.", 404, results.get(2).get("status").asInt());
+        assertEquals("Для некорректного id должен возвращаться код 400.", 400, results.get(3).get("status").asInt());
+
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/rest/players/2"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void updatePlayersRefusesRepeatedIds() throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/players/bulk/update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": 16, \"name\": \"Первый\"}, {\"id\": 16, \"title\": \"Второй\"}, " +
+                        "{\"name\": \"Без id\"}, {\"id\": 17, \"name\": \"Слишком длинное имя\"}]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode results = mapper.readTree(contentAsString);
+
+        assertEquals("Первое изменение игрока должно применяться.", 200, results.get(0).get("status").asInt());
+        assertEquals("Повторный id в запросе должен отклоняться.", 400, results.get(1).get("status").asInt());
+        assertEquals("Должна сообщаться причина отказа.", "duplicate id", results.get(1).get("error").asText());
+        assertEquals("Должна сообщаться причина отказа.", "missing id", results.get(2).get("error").asText());
+        assertEquals("Должно сообщаться нарушенное правило.", "name must be 1 to 12 characters long",
+                results.get(3).get("error").asText());
+
+        String playerAsString = mockMvc.perform(get("/rest/players/16"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(playerAsString, PlayerInfoTest.class);
+        assertEquals("Имя должно быть обновлено.", "Первый", actual.name);
+        assertEquals("Отклоненное изменение не должно применяться.", new TestsHelper().getPlayerInfosById(16).title, actual.title);
+    }
+}
@@ -0,0 +1,154 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.service.PlayerCache;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.util.Date;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalGetTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void etagOfPlayerChangesOnUpdate() throws Exception {
+        String etag = mockMvc.perform(get("/rest/players/3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull("GET /rest/players/{id} должен возвращать ETag.", etag);
+
+        mockMvc.perform(get("/rest/players/3").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(post("/rest/players/3")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Новый титул\"}"))
+                .andExpect(status().isOk());
+
+        String changed = mockMvc.perform(get("/rest/players/3").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue("После изменения игрока ETag должен измениться.", !etag.equals(changed));
+
+        mockMvc.perform(post("/rest/players/3/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 10}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/3").header(HttpHeaders.IF_NONE_MATCH, changed))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players/1000").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+    }
+
+    //test2
+    @Test
+    public void ifModifiedSinceUsesLastChange() throws Exception {
+        mockMvc.perform(get("/rest/players/4"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+
+        mockMvc.perform(post("/rest/players/4")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"banned\": true}"))
+                .andExpect(status().isOk());
+
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/players/4"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        long lastModified = response.getDateHeader(HttpHeaders.LAST_MODIFIED);
+        assertTrue("После изменения игрока должен возвращаться Last-Modified.", lastModified > 0);
+
+        mockMvc.perform(get("/rest/players/4").header(HttpHeaders.IF_MODIFIED_SINCE, response.getHeader(HttpHeaders.LAST_MODIFIED)))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/rest/players/4").header(HttpHeaders.IF_MODIFIED_SINCE, new Date(lastModified - 1000)))
+                .andExpect(status().isOk());
+    }
+
+    //test3
+    @Test
+    public void notModifiedDoesNotLoadPlayer() throws Exception {
+        String etag = mockMvc.perform(get("/rest/players/6"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // a fresh cache: the 304 has to be answered from the version query alone
+        context.getBean(PlayerCache.class).reload();
+
+        mockMvc.perform(get("/rest/players/6").header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+                .andExpect(status().isNotModified());
+
+        String contentAsString = mockMvc.perform(get("/rest/metrics/cache/players"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Map<?, ?> metrics = mapper.readValue(contentAsString, Map.class);
+        assertEquals("Ответ 304 не должен загружать игрока в кэш.", 0, ((Number) metrics.get("size")).intValue());
+    }
+
+    //test4
+    @Test
+    public void etagOfListChangesWithListedPlayer() throws Exception {
+        String url = "/rest/players?pageSize=5&order=ID";
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull("GET /rest/players должен возвращать ETag.", etag);
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get(url + "&pageNumber=1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        String pageUrl = "/rest/players/page?pageSize=5";
+        String pageEtag = mockMvc.perform(get(pageUrl))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(pageUrl).header(HttpHeaders.IF_NONE_MATCH, pageEtag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/rest/players/2/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 1}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(pageUrl).header(HttpHeaders.IF_NONE_MATCH, pageEtag))
+                .andExpect(status().isOk());
+    }
+
+    //test5
+    @Test
+    public void versionComesFromDatabase() throws Exception {
+        String etag = mockMvc.perform(get("/rest/players/7"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // the cached copy stays, only the row changes
+        new JdbcTemplate(context.getBean(DataSource.class)).update("update player set version = version + 1 where id = 7");
+        String stored = etag.replace(".0\"", ".1\"");
+
+        mockMvc.perform(get("/rest/players/7").header(HttpHeaders.IF_NONE_MATCH, stored))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, stored));
+    }
+}
@@ -0,0 +1,174 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.service.ExperienceWriteBehind;
+import com.game.service.PlayerService;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExperienceTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void addExperienceRecalculatesLevel() throws Exception {
+        PlayerInfoTest before = player(5);
+        PlayerInfoTest after = add(5, 2500);
+
+        assertEquals("Опыт должен увеличиться на переданную величину.", before.experience + 2500, (int) after.experience);
+        assertLevel(after);
+        assertEquals("GET должен возвращать обновленного игрока.", after, player(5));
+    }
+
+    //test2
+    @Test
+    public void addExperienceIsClamped() throws Exception {
+        PlayerInfoTest capped = add(7, 10000000);
+        assertEquals("Опыт не может превышать 10000000.", 10000000, (int) capped.experience);
+        assertLevel(capped);
+
+        PlayerInfoTest zero = add(7, -10000000);
+        assertEquals("Опыт не может быть отрицательным.", 0, (int) zero.experience);
+        assertLevel(zero);
+
+        mockMvc.perform(post("/rest/players/7/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 10000001}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/1000/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 1}"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test3
+    @Test
+    public void concurrentDeltasAreNotLost() throws Exception {
+        int before = player(9).experience;
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> add(9, 3)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        PlayerInfoTest after = player(9);
+        assertEquals("Ни одна прибавка опыта не должна потеряться.", before + 300, (int) after.experience);
+        assertLevel(after);
+    }
+
+    //test4
+    @Test
+    public void deferredDeltasAreCoalesced() throws Exception {
+        int before = player(11).experience;
+        for (int i = 0; i < 10; i++) {
+            mockMvc.perform(post("/rest/players/11/experience?deferred=true")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"delta\": 7}"))
+                    .andExpect(status().isAccepted());
+        }
+
+        context.getBean(ExperienceWriteBehind.class).flush();
+
+        PlayerInfoTest after = player(11);
+        assertEquals("Отложенные прибавки должны быть записаны при сбросе.", before + 70, (int) after.experience);
+        assertLevel(after);
+    }
+
+    //test5
+    @Test
+    public void shutdownRetriesTheLastFlush() throws Exception {
+        Map<Long, Integer> written = new HashMap<>();
+        AtomicInteger failures = new AtomicInteger(2);
+        ExperienceWriteBehind writeBehind = writeBehind(deltas -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("база недоступна");
+            }
+            written.putAll(deltas);
+        }, 5000);
+        writeBehind.add(11L, 5);
+        writeBehind.destroy();
+
+        assertEquals("Прибавка должна быть записана после повторных попыток.", Collections.singletonMap(11L, 5), written);
+    }
+
+    //test6
+    @Test
+    public void shutdownGivesUpAfterRetryTime() throws Exception {
+        ExperienceWriteBehind writeBehind = writeBehind(deltas -> {
+            throw new IllegalStateException("база недоступна");
+        }, 50);
+        writeBehind.add(11L, 5);
+        writeBehind.destroy();
+
+        assertEquals("Незаписанная прибавка должна остаться в очереди.", 1, writeBehind.snapshot().get("pendingPlayers"));
+    }
+
+    private static ExperienceWriteBehind writeBehind(Consumer<Map<Long, Integer>> addExperience, long shutdownRetryMs) {
+        PlayerService playerService = (PlayerService) Proxy.newProxyInstance(PlayerService.class.getClassLoader(),
+                new Class<?>[]{PlayerService.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("addExperience") || !(args[0] instanceof Map)) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    @SuppressWarnings("unchecked")
+                    Map<Long, Integer> deltas = (Map<Long, Integer>) args[0];
+                    addExperience.accept(deltas);
+                    return Collections.emptyList();
+                });
+        ExperienceWriteBehind writeBehind = new ExperienceWriteBehind();
+        writeBehind.setPlayerService(playerService);
+        writeBehind.setFlushMs(10);
+        writeBehind.setShutdownRetryMs(shutdownRetryMs);
+        writeBehind.afterPropertiesSet();
+        return writeBehind;
+    }
+
+    private void assertLevel(PlayerInfoTest player) {
+        int level = (int) ((Math.sqrt(2500 + 200 * player.experience) - 50) / 100);
+        assertEquals("Уровень должен соответствовать опыту.", level, (int) player.level);
+        assertEquals("Опыт до следующего уровня должен соответствовать опыту.",
+                50 * (level + 1) * (level + 2) - player.experience, (int) player.untilNextLevel);
+    }
+
+    private PlayerInfoTest add(long id, int delta) throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/players/" + id + "/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": " + delta + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest.class);
+    }
+
+    private PlayerInfoTest player(long id) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest.class);
+    }
+}
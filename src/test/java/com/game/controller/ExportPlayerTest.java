@@ -0,0 +1,62 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportPlayerTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void exportNdJsonReturnsAllPlayers() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/export"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = contentAsString.split("\n");
+
+        List<PlayerInfoTest> expected = new TestsHelper().getAllPlayers();
+        assertEquals("Экспорт должен содержать по строке на каждого игрока.", expected.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            PlayerInfoTest actual = mapper.readValue(lines[i], PlayerInfoTest.class);
+            assertEquals("Строка экспорта должна совпадать с данными игрока.", expected.get(i), actual);
+        }
+    }
+
+    //test2
+    @Test
+    public void exportCsvAppliesFilter() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/export?format=CSV&race=ELF&order=LEVEL"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = contentAsString.split("\n");
+
+        assertEquals("Первая строка CSV должна быть заголовком.",
+                "id,name,title,race,profession,experience,level,untilNextLevel,birthday,banned", lines[0]);
+        int previousLevel = -1;
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split(",");
+            assertEquals("Экспорт должен учитывать фильтр.", "ELF", fields[3]);
+            int level = Integer.parseInt(fields[6]);
+            assertTrue("Экспорт должен учитывать сортировку.", level >= previousLevel);
+            previousLevel = level;
+        }
+        assertTrue("Экспорт должен содержать игроков.", lines.length > 1);
+    }
+
+    //test3
+    @Test
+    public void exportWithUnknownFormat() throws Exception {
+        mockMvc.perform(get("/rest/players/export?format=XML"))
+                .andExpect(status().isBadRequest());
+    }
+}
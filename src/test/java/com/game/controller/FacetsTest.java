@@ -0,0 +1,78 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class FacetsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void facetsMatchFilteredCounts() throws Exception {
+        JsonNode facets = facets();
+
+        assertEquals("Неверное общее количество игроков.", 40L, facets.get("total").asLong());
+        for (Race race : Race.values()) {
+            assertEquals("Количество по расе должно совпадать с /rest/players/count.",
+                    count("race=" + race), facets.get("race").get(race.name()).asLong());
+        }
+        for (Profession profession : Profession.values()) {
+            assertEquals("Количество по профессии должно совпадать с /rest/players/count.",
+                    count("profession=" + profession), facets.get("profession").get(profession.name()).asLong());
+        }
+        assertEquals("Количество забаненных должно совпадать с /rest/players/count.",
+                count("banned=true"), facets.get("banned").get("true").asLong());
+        assertEquals("Количество игроков уровня 0-9 должно совпадать с /rest/players/count.",
+                count("minLevel=0&maxLevel=9"), facets.get("level").get("0-9").asLong());
+    }
+
+    //test2
+    @Test
+    public void facetsFollowWrites() throws Exception {
+        JsonNode before = facets();
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"banned\": true}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/2"))
+                .andExpect(status().isOk());
+
+        JsonNode after = facets();
+        JsonNode rebuilt = mapper.readTree(mockMvc.perform(post("/rest/players/facets/rebuild"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertEquals("Количество игроков не должно измениться после создания и удаления.",
+                before.get("total").asLong(), after.get("total").asLong());
+        assertEquals("Счетчики после записи должны совпадать с полным пересчетом.", rebuilt, after);
+    }
+
+    private long count(String query) throws Exception {
+        return Long.parseLong(mockMvc.perform(get("/rest/players/count?" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode facets() throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/players/facets"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
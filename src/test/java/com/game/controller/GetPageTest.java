@@ -0,0 +1,71 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetPageTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getPageReturnsContentAndTotal() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/page?race=ELF&pageNumber=1&pageSize=2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode page = mapper.readTree(contentAsString);
+        List<PlayerInfoTest> all = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers());
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(1, 2, all);
+        List<PlayerInfoTest> actual = mapper.readValue(page.get("content").toString(), typeReference);
+
+        assertEquals("Возвращается не правильная страница при запросе GET /rest/players/page.", expected, actual);
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/players/page.", (long) all.size(), page.get("totalElements").asLong());
+        assertEquals("Возвращается не правильный признак следующей страницы.", all.size() > 4, page.get("hasNext").asBoolean());
+    }
+
+    //test2
+    @Test
+    public void getPageSliceModeOmitsTotal() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/page?slice=true&pageSize=5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode page = mapper.readTree(contentAsString);
+        List<PlayerInfoTest> actual = mapper.readValue(page.get("content").toString(), typeReference);
+
+        assertEquals("Возвращается не правильная страница при запросе GET /rest/players/page?slice=true.",
+                testsHelper.getPlayerInfosByPage(0, 5, testsHelper.getAllPlayers()), actual);
+        assertTrue(page.get("hasNext").asBoolean());
+        assertFalse(page.has("totalElements"));
+    }
+
+    //test3
+    @Test
+    public void getPageSliceModeLastPage() throws Exception {
+        int size = testsHelper.getAllPlayers().size();
+        String contentAsString = mockMvc.perform(get("/rest/players/page?slice=true&pageSize=" + size))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode page = mapper.readTree(contentAsString);
+        assertEquals("Возвращается не правильный размер последней страницы.", size, page.get("content").size());
+        assertFalse(page.get("hasNext").asBoolean());
+    }
+}
@@ -0,0 +1,91 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetSeekTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void seekWalksAllPlayersByLevel() throws Exception {
+        List<PlayerInfoTest> expected = new ArrayList<>(testsHelper.getAllPlayers());
+        expected.sort(Comparator.<PlayerInfoTest, Integer>comparing(p -> p.level).thenComparing(p -> p.id));
+
+        assertEquals("Возвращается не правильный результат при обходе GET /rest/players/seek по уровню.", expected, walk("LEVEL", ""));
+    }
+
+    //test2
+    @Test
+    public void seekWalksFilteredPlayersByName() throws Exception {
+        List<PlayerInfoTest> expected = new ArrayList<>(testsHelper.getPlayerInfosByBaned(false, testsHelper.getAllPlayers()));
+        expected.sort(Comparator.<PlayerInfoTest, String>comparing(p -> p.name).thenComparing(p -> p.id));
+
+        assertEquals("Возвращается не правильный результат при обходе GET /rest/players/seek по имени.", expected, walk("NAME", "&banned=false"));
+    }
+
+    //test3
+    @Test
+    public void seekWithCursorOfAnotherOrder() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/seek?order=ID"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = mapper.readTree(contentAsString).get("nextCursor").asText();
+
+        mockMvc.perform(get("/rest/players/seek?order=LEVEL&cursor=" + cursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void seekWalksNullKeysFirst() throws Exception {
+        new JdbcTemplate(context.getBean(DataSource.class)).update("update player set experience = null where id in (3, 5, 8, 11, 17, 22, 30, 35, 38)");
+        List<PlayerInfoTest> players = new ArrayList<>(testsHelper.getAllPlayers());
+        players.sort(Comparator.<PlayerInfoTest, Integer>comparing(p -> p.experience).thenComparing(p -> p.id));
+        List<Long> expected = new ArrayList<>(Arrays.asList(3L, 5L, 8L, 11L, 17L, 22L, 30L, 35L, 38L));
+        for (PlayerInfoTest player : players) {
+            if (!expected.contains(player.id)) {
+                expected.add(player.id);
+            }
+        }
+
+        List<Long> actual = new ArrayList<>();
+        for (PlayerInfoTest player : walk("EXPERIENCE", "")) {
+            actual.add(player.id);
+        }
+        assertEquals("Игроки без опыта должны идти первыми и не теряться при обходе.", expected, actual);
+    }
+
+    private List<PlayerInfoTest> walk(String order, String filters) throws Exception {
+        List<PlayerInfoTest> result = new ArrayList<>();
+        String cursor = "";
+        do {
+            String contentAsString = mockMvc.perform(get("/rest/players/seek?pageSize=7&order=" + order + filters + "&cursor=" + cursor))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = mapper.readTree(contentAsString);
+            result.addAll(mapper.readValue(page.get("content").toString(), typeReference));
+            cursor = page.has("nextCursor") ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.util.AssertionErrors.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ImportPlayerTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @After
+    public void restoreChunkSize() {
+        ReflectionTestUtils.setField(context.getBean(RestPlayerController.class), "importChunkSize", 1000);
+    }
+
+    //test1
+    @Test
+    public void importNdJsonReportsRejectedLines() throws Exception {
+        String body = "{\"name\": \"Импорт1\", \"title\": \"Первый\", \"race\": \"ELF\", \"profession\": \"SORCERER\", \"birthday\": 1000000000000, \"experience\": 2500}\n" +
+                "{\"name\": \"Слишком длинное имя\", \"title\": \"Второй\", \"race\": \"ELF\", \"profession\": \"SORCERER\", \"birthday\": 1000000000000, \"experience\": 10}\n" +
+                "\n" +
+                "{\"name\": \"Импорт2\", \"title\": \"Третий\", \"race\": \"ORC\", \"profession\": \"WARRIOR\", \"birthday\": 1000000000000, \"experience\": 0, \"banned\": true}\n" +
+                "{\"name\": \"Импорт3\", \"race\": \"GNOME\"}\n";
+
+        List<Map<?, ?>> report = importPlayers("NDJSON", body);
+
+        Map<?, ?> last = report.get(report.size() - 1);
+        assertEquals("Импорт должен завершаться итоговой строкой.", true, last.get("done"));
+        assertEquals("Должно быть прочитано четыре непустые строки.", 4, last.get("rows"));
+        assertEquals("Должно быть импортировано два игрока.", 2, last.get("imported"));
+        assertEquals("Должно быть отклонено две строки.", 2, last.get("rejected"));
+        assertTrue("Должна быть отклонена строка 2.", rejectedLines(report).contains(2));
+        assertTrue("Должна быть отклонена строка 5.", rejectedLines(report).contains(5));
+        assertEquals("Должно сообщаться нарушенное правило.", "name must be 1 to 12 characters long", rejection(report, 2));
+
+        String count = mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Импортированные игроки должны сохраниться.", "42", count);
+
+        String contentAsString = mockMvc.perform(get("/rest/players/41"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest imported = mapper.readValue(contentAsString, PlayerInfoTest.class);
+        assertEquals("Уровень должен рассчитываться при импорте.", 6, (int) imported.level);
+    }
+
+    //test2
+    @Test
+    public void importCsvCommitsInChunks() throws Exception {
+        ReflectionTestUtils.setField(context.getBean(RestPlayerController.class), "importChunkSize", 2);
+        String body = "experience,birthday,race,profession,title,name\r\n" +
+                "100,1000000000000,HUMAN,ROGUE,\"Титул, с запятой\",Первый\r\n" +
+                "200,1000000000000,DWARF,CLERIC,\"Титул \"\"в кавычках\"\"\",Второй\r\n" +
+                "abc,1000000000000,DWARF,CLERIC,Титул,Третий\r\n" +
+                "300,1000000000000,GIANT,PALADIN,Титул,Четвертый\r\n";
+
+        List<Map<?, ?>> report = importPlayers("CSV", body);
+
+        Map<?, ?> last = report.get(report.size() - 1);
+        assertEquals("Должно быть импортировано три игрока.", 3, last.get("imported"));
+        assertEquals("Строка с неверным опытом должна быть отклонена.", Collections.singletonList(4), rejectedLines(report));
+        long progress = report.stream().filter(line -> line.containsKey("rows") && !line.containsKey("done")).count();
+        assertEquals("Прогресс должен сообщаться после каждой порции.", 2L, progress);
+
+        String contentAsString = mockMvc.perform(get("/rest/players/42"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest second = mapper.readValue(contentAsString, PlayerInfoTest.class);
+        assertEquals("Кавычки внутри поля CSV должны разбираться.", "Титул \"в кавычках\"", second.title);
+    }
+
+    //test3
+    @Test
+    public void importCsvRequiresColumns() throws Exception {
+        mockMvc.perform(post("/rest/players/import?format=CSV")
+                .content("name,title\nИмя,Титул\n".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void exportCanBeImported() throws Exception {
+        String export = mockMvc.perform(get("/rest/players/export?format=CSV"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<Map<?, ?>> report = importPlayers("CSV", export);
+
+        Map<?, ?> last = report.get(report.size() - 1);
+        assertEquals("Все выгруженные игроки должны загружаться обратно.", 40, last.get("imported"));
+        assertEquals("Ни одна выгруженная строка не должна отклоняться.", 0, last.get("rejected"));
+    }
+
+    //test5
+    @Test
+    public void chunkSizeAboveBulkLimitIsRefused() {
+        RestPlayerController controller = context.getBean(RestPlayerController.class);
+        ReflectionTestUtils.setField(controller, "importChunkSize", 10001);
+        try {
+            controller.afterPropertiesSet();
+            fail("Порция импорта больше bulk.maxItems должна отклоняться при запуске.");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private List<Map<?, ?>> importPlayers(String format, String body) throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/players/import?format=" + format)
+                .content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Map<?, ?>> lines = new ArrayList<>();
+        for (String line : contentAsString.split("\n")) {
+            lines.add(mapper.readValue(line, Map.class));
+        }
+        return lines;
+    }
+
+    private static List<Integer> rejectedLines(List<Map<?, ?>> report) {
+        List<Integer> lines = new ArrayList<>();
+        for (Map<?, ?> line : report) {
+            if (line.containsKey("line")) {
+                lines.add((Integer) line.get("line"));
+            }
+        }
+        return lines;
+    }
+
+    private static Object rejection(List<Map<?, ?>> report, int line) {
+        for (Map<?, ?> item : report) {
+            if (Integer.valueOf(line).equals(item.get("line"))) {
+                return item.get("error");
+            }
+        }
+        return null;
+    }
+}
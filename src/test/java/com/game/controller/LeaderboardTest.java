@@ -0,0 +1,119 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Player;
+import com.game.repository.PlayerRepository;
+import com.game.service.Leaderboard;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.lang.reflect.Proxy;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class LeaderboardTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void topMatchesExperienceOrder() throws Exception {
+        List<PlayerInfoTest> expected = ranked();
+        JsonNode top = read("/rest/leaderboard?limit=10");
+
+        assertEquals("Неверное количество игроков в топе.", 10, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals("Топ должен быть отсортирован по опыту.", expected.get(i).id, top.get(i).get("id").asLong());
+            assertEquals("Неверный ранг игрока.", i + 1, top.get(i).get("rank").asInt());
+        }
+    }
+
+    //test2
+    @Test
+    public void rankAndWindowOfPlayer() throws Exception {
+        List<PlayerInfoTest> expected = ranked();
+        PlayerInfoTest player = expected.get(15);
+
+        JsonNode entry = read("/rest/leaderboard/" + player.id);
+        assertEquals("Неверный ранг игрока.", 16, entry.get("rank").asInt());
+
+        JsonNode around = read("/rest/leaderboard/" + player.id + "/around?window=2");
+        assertEquals("Окно должно содержать игрока и по два соседа.", 5, around.size());
+        assertEquals("Игрок должен быть в центре окна.", (long) player.id, around.get(2).get("id").asLong());
+        assertEquals("Неверный ранг первого игрока в окне.", 14, around.get(0).get("rank").asInt());
+    }
+
+    //test3
+    @Test
+    public void writesMoveAndRemovePlayers() throws Exception {
+        PlayerInfoTest last = ranked().get(ranked().size() - 1);
+        mockMvc.perform(post("/rest/players/" + last.id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": 10000000}"))
+                .andExpect(status().isOk());
+        assertEquals("Игрок с наибольшим опытом должен быть первым.", 1, read("/rest/leaderboard/" + last.id).get("rank").asInt());
+
+        mockMvc.perform(post("/rest/players/" + last.id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"banned\": true}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/leaderboard/" + last.id))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/rest/leaderboard?limit=0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void changesDuringRebuildAreReplayed() throws Exception {
+        PlayerInfoTest last = ranked().get(ranked().size() - 1);
+        Player unknown = new Player();
+        unknown.setId(1000L);
+        unknown.setName("Никто");
+        unknown.setExperience(10000000);
+        unknown.setBanned(false);
+
+        // both changes commit after the rebuild has read the table, so only the replay can apply them
+        Leaderboard leaderboard = new Leaderboard();
+        PlayerRepository playerRepository = context.getBean(PlayerRepository.class);
+        leaderboard.setPlayerRepository((PlayerRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{PlayerRepository.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(playerRepository, args);
+                    if (method.getName().equals("findAllRanked")) {
+                        leaderboard.playerSaved(unknown);
+                        leaderboard.playerDeleted(last.id);
+                    }
+                    return result;
+                }));
+        leaderboard.afterPropertiesSet();
+
+        assertEquals("Изменения во время загрузки должны применяться после неё.", ranked().size(), leaderboard.size());
+        assertEquals("Сохранённый во время загрузки игрок должен попасть в рейтинг.",
+                1000L, leaderboard.top(1).get(0).getId());
+        assertEquals("Удалённый во время загрузки игрок должен пропасть из рейтинга.", null, leaderboard.rank(last.id));
+    }
+
+    private List<PlayerInfoTest> ranked() {
+        return new TestsHelper().getAllPlayers().stream()
+                .filter(player -> !player.banned)
+                .sorted(Comparator.comparing((PlayerInfoTest player) -> player.experience).reversed()
+                        .thenComparing(player -> player.id))
+                .collect(Collectors.toList());
+    }
+
+    private JsonNode read(String url) throws Exception {
+        return mapper.readTree(mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
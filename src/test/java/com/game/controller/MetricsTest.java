@@ -0,0 +1,90 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.metrics.PrometheusText;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void prometheusScrapeCoversRequestsServiceAndHibernate() throws Exception {
+        double before = value(scrape(), "rpg_http_request_duration_seconds_count{endpoint=\"GET /rest/players/{id}\"}");
+
+        mockMvc.perform(get("/rest/players/2"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1000"))
+                .andExpect(status().isNotFound());
+
+        String scrape = scrape();
+        assertTrue("Каждый запрос должен попадать в гистограмму своего эндпоинта.",
+                value(scrape, "rpg_http_request_duration_seconds_count{endpoint=\"GET /rest/players/{id}\"}") == before + 2);
+        assertTrue("Гистограмма должна заканчиваться корзиной +Inf.",
+                value(scrape, "rpg_http_request_duration_seconds_bucket{endpoint=\"GET /rest/players/{id}\",le=\"+Inf\"}") == before + 2);
+        assertTrue("Ответ 404 должен считаться ошибкой эндпоинта.",
+                value(scrape, "rpg_http_request_errors_total{endpoint=\"GET /rest/players/{id}\",status=\"404\"}") >= 1);
+        assertTrue("Вызовы сервиса должны замеряться.",
+                value(scrape, "rpg_service_duration_seconds_count{method=\"PlayerServiceImpl.getPlayerById\"}") >= 2);
+        assertTrue("Исключения сервиса должны считаться.",
+                value(scrape, "rpg_service_errors_total{method=\"PlayerServiceImpl.getPlayerById\"}") >= 1);
+        assertTrue("Статистика Hibernate должна экспортироваться.",
+                value(scrape, "rpg_hibernate_events_total{event=\"queries\"}") >= 1);
+        assertTrue("Запросы к самим метрикам не должны замеряться.", !scrape.contains("/rest/metrics"));
+    }
+
+    //test2
+    @Test
+    public void jsonMetricsReportPercentiles() throws Exception {
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk());
+
+        String contentAsString = mockMvc.perform(get("/rest/metrics/requests"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Map<?, ?> endpoints = mapper.readValue(contentAsString, Map.class);
+        Map<?, ?> count = (Map<?, ?>) endpoints.get("GET /rest/players/count");
+        assertNotNull("Эндпоинт должен появиться в метриках запросов.", count);
+        assertTrue("Должны отдаваться перцентили p50/p99/p999.",
+                count.containsKey("p50Ms") && count.containsKey("p99Ms") && count.containsKey("p999Ms"));
+    }
+
+    //test3
+    @Test
+    public void startupTimeIsReported() throws Exception {
+        String scrape = scrape();
+        assertTrue("Должно экспортироваться время обновления контекста.",
+                value(scrape, "rpg_startup_context_seconds{context=\"root\"}") > 0);
+        assertTrue("Должно экспортироваться время до готовности.",
+                value(scrape, "rpg_startup_ready_seconds") > value(scrape, "rpg_startup_context_seconds{context=\"root\"}"));
+
+        String contentAsString = mockMvc.perform(get("/rest/metrics/startup"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Map<?, ?> beans = (Map<?, ?>) mapper.readValue(contentAsString, Map.class).get("slowestBeansMs");
+        assertTrue("Отчет должен включать создание EntityManagerFactory.", beans.containsKey("entityManagerFactory"));
+    }
+
+    private String scrape() throws Exception {
+        return mockMvc.perform(get("/rest/metrics/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", PrometheusText.CONTENT_TYPE))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static double value(String scrape, String series) {
+        Matcher matcher = Pattern.compile("^" + Pattern.quote(series) + " (\\S+)$", Pattern.MULTILINE).matcher(scrape);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0;
+    }
+}
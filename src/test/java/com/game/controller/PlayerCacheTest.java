@@ -0,0 +1,60 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PlayerCacheTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void updateRefreshesCachedPlayer() throws Exception {
+        mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/14")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Кэш\"}"))
+                .andExpect(status().isOk());
+
+        String contentAsString = mockMvc.perform(get("/rest/players/14"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
+
+        assertEquals("После обновления GET /rest/players/{id} должен возвращать новые данные.", "Кэш", actual.name);
+    }
+
+    //test2
+    @Test
+    public void deleteEvictsCachedPlayer() throws Exception {
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test3
+    @Test
+    public void createReplacesCachedNotFound() throws Exception {
+        mockMvc.perform(get("/rest/players/41"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/41"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,57 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PlayerCountCacheTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void repeatedCountIsServedFromCache() throws Exception {
+        JsonNode before = metrics();
+        String first = count("/rest/players/count?race=ELF");
+        String second = count("/rest/players/count?race=ELF");
+        JsonNode after = metrics();
+
+        assertEquals("Повторный запрос должен возвращать то же количество.", first, second);
+        assertEquals("Повторный запрос должен обслуживаться из кэша.",
+                before.get("hits").asLong() + 1, after.get("hits").asLong());
+    }
+
+    //test2
+    @Test
+    public void writesInvalidateCachedCount() throws Exception {
+        assertEquals("Неверное количество игроков.", "40", count("/rest/players/count"));
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        assertEquals("После создания игрока количество должно увеличиться.", "41", count("/rest/players/count"));
+
+        mockMvc.perform(delete("/rest/players/1"))
+                .andExpect(status().isOk());
+        assertEquals("После удаления игрока количество должно уменьшиться.", "40", count("/rest/players/count"));
+    }
+
+    private String count(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private JsonNode metrics() throws Exception {
+        return mapper.readTree(count("/rest/metrics/cache/counts"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.AppConfig;
+import com.game.config.WebConfig;
+import com.game.metrics.PoolMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.ContextHierarchy;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A root and a servlet context as MyWebAppInit builds them, with a HikariCP pool over H2 as the primary,
+ * so the controller of the servlet context has to report the pool of the root context.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("dev")
+@WebAppConfiguration
+@ContextHierarchy({
+        @ContextConfiguration(classes = {AppConfig.class, PoolMetricsTest.PoolConfig.class}),
+        @ContextConfiguration(classes = WebConfig.class)
+})
+public class PoolMetricsTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void poolStatsComeFromTheRootPool() throws Exception {
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk());
+
+        String contentAsString = mockMvc.perform(get("/rest/metrics/pool"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Map<?, ?> pool = mapper.readValue(contentAsString, Map.class);
+
+        assertEquals("Должна отдаваться статистика пула соединений.", true, pool.get("pooled"));
+        assertEquals("Неверное имя пула.", "test", pool.get("pool"));
+        assertEquals("Неверный размер пула.", 4, pool.get("max"));
+        assertTrue("Соединения пула должны учитываться.", ((Number) pool.get("created")).longValue() > 0);
+        assertTrue("Выдача соединений должна замеряться.",
+                ((Number) ((Map<?, ?>) pool.get("acquireTime")).get("count")).longValue() > 0);
+    }
+
+    public static class PoolConfig {
+
+        @Bean(name = "primaryDataSource", destroyMethod = "close")
+        public HikariDataSource primaryDataSource(PoolMetrics poolMetrics) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("test");
+            config.setJdbcUrl("jdbc:h2:mem:pool-metrics-test;DB_CLOSE_DELAY=-1");
+            config.setMaximumPoolSize(4);
+            config.setMetricsTrackerFactory(poolMetrics);
+            HikariDataSource dataSource = new HikariDataSource(config);
+
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+            populator.setSqlScriptEncoding("UTF-8");
+            populator.execute(dataSource);
+            return dataSource;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.AppConfig;
+import com.game.config.MyWebAppInit;
+import com.game.config.WebConfig;
+import com.game.controller.utils.AsyncMockMvc;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.service.PlayerChangeListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The replica of ReadReplicaTest with Hibernate's query cache on: results read there would stay cached as current,
+ * so reads have to keep to the primary.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("dev")
+@ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class, ReadReplicaTest.ReplicaConfig.class})
+@TestPropertySource(properties = "db.cache.enabled=true")
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ReadReplicaCacheTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private WebApplicationContext context;
+    private JdbcTemplate replica;
+    private AsyncMockMvc mockMvc;
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setReplica(@Qualifier("replicaDataSource") DataSource replica) {
+        this.replica = new JdbcTemplate(replica);
+    }
+
+    @Before
+    public void setup() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(replica.getDataSource());
+        replica.update("update player set name = 'Реплика' where id = 1");
+
+        context.getBeansOfType(PlayerChangeListener.class).values().forEach(PlayerChangeListener::reload);
+        mockMvc = new AsyncMockMvc(MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilter(((request, response, chain) -> {
+                    response.setCharacterEncoding("UTF-8");
+                    chain.doFilter(request, response);
+                }))
+                .build());
+    }
+
+    //test1
+    @Test
+    public void cachedPagesComeFromPrimary() throws Exception {
+        assertEquals("Страница должна читаться на основной базе.", "Ниус", firstById());
+        mockMvc.perform(post("/rest/players/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Новое\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Изменение должно сразу попадать в страницу.", "Новое", firstById());
+    }
+
+    private String firstById() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players?order=ID&pageSize=1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest[].class)[0].name;
+    }
+}
@@ -0,0 +1,203 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.config.AppConfig;
+import com.game.config.MyWebAppInit;
+import com.game.config.WebConfig;
+import com.game.controller.utils.AsyncMockMvc;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.service.Leaderboard;
+import com.game.service.PlayerChangeListener;
+import com.game.service.PlayerFacets;
+import com.game.service.PlayerTextIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two separate H2 databases stand in for the primary and the replica. Nothing replicates between them,
+ * so every response shows which one served it.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ActiveProfiles("dev")
+@ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class, ReadReplicaTest.ReplicaConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ReadReplicaTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private WebApplicationContext context;
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private AsyncMockMvc mockMvc;
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setPrimary(@Qualifier("primaryDataSource") DataSource primary) {
+        this.primary = new JdbcTemplate(primary);
+    }
+
+    @Autowired
+    public void setReplica(@Qualifier("replicaDataSource") DataSource replica) {
+        this.replica = new JdbcTemplate(replica);
+    }
+
+    @Before
+    public void setup() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(replica.getDataSource());
+        replica.update("update player set name = 'Реплика' where id = 1");
+
+        context.getBeansOfType(PlayerChangeListener.class).values().forEach(PlayerChangeListener::reload);
+        mockMvc = new AsyncMockMvc(MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilter(((request, response, chain) -> {
+                    response.setCharacterEncoding("UTF-8");
+                    chain.doFilter(request, response);
+                }))
+                .build());
+    }
+
+    //test1
+    @Test
+    public void readsGoToReplica() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players?order=ID&pageSize=1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest[] actual = mapper.readValue(contentAsString, PlayerInfoTest[].class);
+
+        assertEquals("Чтение должно выполняться на реплике.", "Реплика", actual[0].name);
+    }
+
+    //test2
+    @Test
+    public void writesGoToPrimary() throws Exception {
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Основная\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Создание должно выполняться на основной базе.",
+                41, primary.queryForObject("select count(*) from player", Integer.class));
+        assertEquals("Обновление должно выполняться на основной базе.",
+                "Основная", primary.queryForObject("select name from player where id = 2", String.class));
+        assertEquals("Реплика не должна изменяться при записи.",
+                40, replica.queryForObject("select count(*) from player", Integer.class));
+    }
+
+    //test3
+    @Test
+    public void playerByIdIsNotReadFromLaggingReplica() throws Exception {
+        mockMvc.perform(get("/rest/players/3"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/players/3")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Основная\"}"))
+                .andExpect(status().isOk());
+
+        // the replica never receives the update, the evicted entry has to be reloaded from the primary
+        String contentAsString = mockMvc.perform(get("/rest/players/3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
+
+        assertEquals("Промах кэша не должен читать отстающую реплику.", "Основная", actual.name);
+        assertEquals("Реплика должна отставать от основной базы.",
+                "Эззэссэль", replica.queryForObject("select name from player where id = 3", String.class));
+    }
+
+    //test4
+    @Test
+    public void countIsNotCachedFromLaggingReplica() throws Exception {
+        assertEquals("Неверное количество игроков.", "40", count());
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        // the replica never receives the new row, the outdated count has to be taken again on the primary
+        assertEquals("Созданный игрок должен сразу учитываться в количестве.", "41", count());
+        assertEquals("Реплика должна отставать от основной базы.",
+                40, replica.queryForObject("select count(*) from player", Integer.class));
+    }
+
+    //test5
+    @Test
+    public void derivedStructuresAreBuiltFromPrimary() throws Exception {
+        // a row the replica hasn't received yet
+        primary.update("insert into player(id, name, title, race, profession, birthday, banned, experience, level, " +
+                "untilNextLevel) values (41, 'Основная', 'Только на основной', 'DWARF', 'CLERIC', '2010-01-01', false, " +
+                "10000000, 446, 4600)");
+        // as when a read-only request used to trigger the first build
+        TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        readOnly.execute(status -> {
+            context.getBeansOfType(PlayerChangeListener.class).values().forEach(PlayerChangeListener::reload);
+            return null;
+        });
+
+        assertEquals("Рейтинг должен строиться по основной базе.",
+                41L, context.getBean(Leaderboard.class).top(1).get(0).getId());
+        assertEquals("Счётчики должны строиться по основной базе.",
+                41L, context.getBean(PlayerFacets.class).snapshot().get("total"));
+        assertEquals("Поисковый индекс должен строиться по основной базе.",
+                Collections.singleton(41L), context.getBean(PlayerTextIndex.class).nameCandidates("Основн"));
+    }
+
+    private String count() throws Exception {
+        return mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    public static class ReplicaConfig {
+
+        @Bean(name = "replicaDataSource")
+        public DataSource replicaDataSource() {
+            return new EmbeddedDatabaseBuilder()
+                    .generateUniqueName(true)
+                    .setType(H2)
+                    .setScriptEncoding("UTF-8")
+                    .addScript("test.sql")
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.service.PlayerTextIndex;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SearchPlayerTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void searchByNameFragment() throws Exception {
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByName("ари", testsHelper.getAllPlayers());
+
+        assertEquals("Возвращается не правильный результат при поиске по имени.", expected, search("name=ари"));
+    }
+
+    //test2
+    @Test
+    public void searchByTitleFragmentWithOtherFilters() throws Exception {
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByBaned(false,
+                testsHelper.getPlayerInfosByTitle("Вои", testsHelper.getAllPlayers()));
+
+        assertEquals("Возвращается не правильный результат при поиске по титулу.", expected, search("title=Вои&banned=false"));
+    }
+
+    //test3
+    @Test
+    public void searchWithoutMatches() throws Exception {
+        assertEquals("Возвращается не правильный результат при поиске по имени.", 0, search("name=Несуществующий").size());
+    }
+
+    //test4
+    @Test
+    public void searchFollowsUpdatesAndDeletes() throws Exception {
+        mockMvc.perform(post("/rest/players/3")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Новичок\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/2"))
+                .andExpect(status().isOk());
+
+        assertEquals("Игрок должен находиться по новому имени.", 1, search("name=Новичок").size());
+        assertEquals("Игрок не должен находиться по старому имени.", 0, search("name=Эззэссэль").size());
+        assertEquals("Удаленный игрок не должен находиться.", 0, search("name=Никрашш").size());
+    }
+
+    //test5
+    @Test
+    public void searchWithLikeWildcards() throws Exception {
+        assertEquals("Символ _ должен совпадать с любым символом.", 1, search("name=Ник_ашш").size());
+        assertEquals("Символ % должен совпадать с любой строкой.", 1, search("title=Найт%льф").size());
+    }
+
+    //test6
+    @Test
+    public void commonFragmentFallsBackToLike() throws Exception {
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByName("ари", testsHelper.getAllPlayers());
+        PlayerTextIndex index = context.getBean(PlayerTextIndex.class);
+        index.setMaxCandidates(1);
+        try {
+            assertEquals("Частый фрагмент должен искаться без индекса.", expected, search("name=ари"));
+        } finally {
+            index.setMaxCandidates(1000);
+        }
+    }
+
+    private List<PlayerInfoTest> search(String query) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players?pageSize=100&" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, typeReference);
+    }
+}
@@ -0,0 +1,220 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Player;
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerService;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertFalse;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads go straight to the repository, past the application's own caches, so they only see what Hibernate's
+ * second-level and query caches hold. Each write path of PlayerServiceImpl is taken after the caches were warmed.
+ */
+@TestPropertySource(properties = "db.cache.enabled=true")
+public class SecondLevelCacheTest extends AbstractTest {
+
+    private static final Specification<Player> NOT_BANNED = (root, query, criteriaBuilder) ->
+            criteriaBuilder.isFalse(root.<Boolean>get("banned"));
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void playersAndQueriesAreServedFromCache() throws Exception {
+        warm(6L);
+        Map<?, ?> before = hibernateMetrics();
+
+        assertEquals("Неверное имя игрока.", "Эман", player(6L).getName());
+        assertEquals("Неверное количество незабаненных игроков.", 32L, repository().count(NOT_BANNED));
+        topExperienceId();
+
+        Map<?, ?> after = hibernateMetrics();
+        assertTrue("Игрок должен читаться из кэша второго уровня.",
+                counter(after, "secondLevelCacheHits") > counter(before, "secondLevelCacheHits"));
+        assertEquals("Количество и страница должны читаться из кэша запросов.", counter(before, "queryCacheHits") + 3,
+                counter(after, "queryCacheHits"));
+        assertEquals("Повторные запросы не должны выполняться.", counter(before, "queries"), counter(after, "queries"));
+
+        Map<?, ?> regions = (Map<?, ?>) after.get("cacheRegions");
+        assertTrue("Должна отдаваться статистика региона игроков.", regions.containsKey("player"));
+        assertTrue("Должна отдаваться статистика региона запросов.",
+                ((Number) ((Map<?, ?>) regions.get(PlayerRepository.QUERY_CACHE_REGION)).get("size")).longValue() > 0);
+
+        String scrape = mockMvc.perform(get("/rest/metrics/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Попадания в кэш запросов должны экспортироваться.",
+                scrape.contains("rpg_hibernate_cache_requests_total{region=\"player-queries\",result=\"hit\"}"));
+    }
+
+    //test2
+    @Test
+    public void createsInvalidateQueries() throws Exception {
+        warm(6L);
+        mockMvc.perform(post("/rest/players")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        assertEquals("Созданный игрок должен учитываться.", 33L, repository().count(NOT_BANNED));
+
+        mockMvc.perform(post("/rest/players/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.NORMAL_JSON + "]"))
+                .andExpect(status().isOk());
+        assertEquals("Игроки, созданные пакетом, должны учитываться.", 35L, repository().count(NOT_BANNED));
+
+        mockMvc.perform(post("/rest/players/import?format=NDJSON")
+                .content(("{\"name\": \"Импорт\", \"title\": \"Первый\", \"race\": \"ELF\", \"profession\": \"SORCERER\", " +
+                        "\"birthday\": 1000000000000, \"experience\": 10000000}\n").getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk());
+        assertEquals("Импортированные игроки должны учитываться.", 36L, repository().count(NOT_BANNED));
+        assertEquals("Импортированный игрок должен попасть в страницу.", 44L, topExperienceId());
+    }
+
+    //test3
+    @Test
+    public void updatesInvalidatePlayersAndQueries() throws Exception {
+        warm(6L);
+        warm(7L);
+        mockMvc.perform(post("/rest/players/6")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Новое\", \"banned\": true}"))
+                .andExpect(status().isOk());
+        assertEquals("Имя должно обновиться в кэше.", "Новое", player(6L).getName());
+        assertEquals("Забаненный игрок не должен учитываться.", 31L, repository().count(NOT_BANNED));
+
+        mockMvc.perform(post("/rest/players/bulk/update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": 7, \"experience\": 10000000}]"))
+                .andExpect(status().isOk());
+        assertEquals("Опыт должен обновиться в кэше.", 10000000, (int) player(7L).getExperience());
+        assertEquals("Обновленный игрок должен возглавить страницу.", 7L, topExperienceId());
+    }
+
+    //test4
+    @Test
+    public void experienceInvalidatesPlayersAndQueries() throws Exception {
+        warm(8L);
+        warm(9L);
+        mockMvc.perform(post("/rest/players/8/experience")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 10000000}"))
+                .andExpect(status().isOk());
+        assertEquals("Опыт должен обновиться в кэше.", 10000000, (int) player(8L).getExperience());
+        assertEquals("Уровень должен обновиться в кэше.", 446, (int) player(8L).getLevel());
+        assertEquals("Игрок должен возглавить страницу.", 8L, topExperienceId());
+
+        context.getBean(PlayerService.class).addExperience(Collections.singletonMap(8L, -10000000));
+        context.getBean(PlayerService.class).addExperience(Collections.singletonMap(9L, 10000000));
+        assertEquals("Опыт должен обновиться в кэше.", 0, (int) player(8L).getExperience());
+        assertEquals("Игрок должен возглавить страницу.", 9L, topExperienceId());
+    }
+
+    //test5
+    @Test
+    public void deletesInvalidatePlayersAndQueries() throws Exception {
+        warm(1L);
+        warm(2L);
+        mockMvc.perform(delete("/rest/players/1"))
+                .andExpect(status().isOk());
+        assertFalse("Удаленный игрок не должен читаться из кэша.", repository().findById(1L).isPresent());
+        assertEquals("Удаленный игрок не должен учитываться.", 31L, repository().count(NOT_BANNED));
+
+        mockMvc.perform(post("/rest/players/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[2]"))
+                .andExpect(status().isOk());
+        assertFalse("Удаленный игрок не должен читаться из кэша.", repository().findById(2L).isPresent());
+        assertEquals("Удаленный игрок не должен учитываться.", 30L, repository().count(NOT_BANNED));
+    }
+
+    //test6
+    @Test
+    public void singleWritesEvictOnlyTheirPlayer() throws Exception {
+        player(11L);
+        player(12L);
+        player(13L);
+        mockMvc.perform(post("/rest/players/11")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Новое\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/13"))
+                .andExpect(status().isOk());
+
+        assertFalse("Обновленный игрок должен вытесняться из кэша.", cached(11L));
+        assertFalse("Удаленный игрок должен вытесняться из кэша.", cached(13L));
+        assertTrue("Остальные игроки должны оставаться в кэше.", cached(12L));
+    }
+
+    //test7
+    @Test
+    public void uncommittedRowsAreNotCached() {
+        String name = player(14L).getName();
+        Player changes = new Player();
+        changes.setName("Откат");
+
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).execute(status -> {
+            repository().updateFields(14L, changes);
+            assertEquals("Игрок должен перечитываться из базы.", "Откат", player(14L).getName());
+            assertFalse("Незафиксированная строка не должна попадать в кэш.", cached(14L));
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertEquals("Отмененное изменение не должно читаться из кэша.", name, player(14L).getName());
+    }
+
+    private void warm(Long id) {
+        player(id);
+        repository().count(NOT_BANNED);
+        topExperienceId();
+    }
+
+    private Player player(Long id) {
+        return repository().findById(id).orElse(null);
+    }
+
+    private long topExperienceId() {
+        return repository().findAll(NOT_BANNED, PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "experience")))
+                .getContent().get(0).getId();
+    }
+
+    private boolean cached(Long id) {
+        return context.getBean(EntityManagerFactory.class).getCache().contains(Player.class, id);
+    }
+
+    private PlayerRepository repository() {
+        return context.getBean(PlayerRepository.class);
+    }
+
+    private Map<?, ?> hibernateMetrics() throws Exception {
+        return mapper.readValue(mockMvc.perform(get("/rest/metrics/hibernate"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), Map.class);
+    }
+
+    private static long counter(Map<?, ?> metrics, String name) {
+        return ((Number) metrics.get(name)).longValue();
+    }
+}
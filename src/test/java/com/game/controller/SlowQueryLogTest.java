@@ -0,0 +1,69 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.metrics.SlowQueryLog;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SlowQueryLogTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @After
+    public void restoreThreshold() {
+        context.getBean(SlowQueryLog.class).setThresholdMs(200);
+    }
+
+    //test1
+    @Test
+    public void queriesAreGroupedByFilterShape() throws Exception {
+        Map<?, ?> before = shape("players [race,minLevel] order=LEVEL");
+        long countBefore = before == null ? 0 : ((Number) before.get("count")).longValue();
+
+        mockMvc.perform(get("/rest/players?race=HUMAN&minLevel=5&order=LEVEL"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players?race=ELF&minLevel=20&order=LEVEL&pageNumber=1"))
+                .andExpect(status().isOk());
+
+        Map<?, ?> after = shape("players [race,minLevel] order=LEVEL");
+        assertNotNull("Запросы с одинаковым набором фильтров должны попадать в одну группу.", after);
+        assertTrue("Группа должна учитывать оба запроса.", ((Number) after.get("count")).longValue() == countBefore + 2);
+        assertTrue("Значения фильтров не должны попадать в отпечаток.", shape("players [race,minLevel] order=ID") == null);
+    }
+
+    //test2
+    @Test
+    public void slowQueriesKeepTheirSql() throws Exception {
+        context.getBean(SlowQueryLog.class).setThresholdMs(0);
+
+        mockMvc.perform(get("/rest/players/count?profession=WARRIOR&banned=true"))
+                .andExpect(status().isOk());
+
+        Map<?, ?> count = shape("count [profession,banned]");
+        assertNotNull("Запрос количества должен попадать в свою группу.", count);
+        assertTrue("Запрос медленнее порога должен учитываться как медленный.", ((Number) count.get("slow")).longValue() >= 1);
+        assertTrue("Для медленной группы должен сохраняться SQL.",
+                String.valueOf(count.get("slowestSql")).toLowerCase().startsWith("select count"));
+    }
+
+    private Map<?, ?> shape(String shape) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/metrics/queries?limit=1000"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<?> shapes = mapper.readValue(contentAsString, List.class);
+        for (Object entry : shapes) {
+            if (shape.equals(((Map<?, ?>) entry).get("shape"))) {
+                return (Map<?, ?>) entry;
+            }
+        }
+        return null;
+    }
+}
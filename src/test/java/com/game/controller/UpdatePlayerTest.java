@@ -7,9 +7,12 @@ import com.game.controller.utils.TestsHelper;
 import com.game.entity.Race;
 import org.junit.Test;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import javax.sql.DataSource;
+
 import static org.springframework.test.util.AssertionErrors.assertEquals;
 import static org.springframework.test.util.AssertionErrors.assertNotEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -181,4 +184,31 @@ public class UpdatePlayerTest extends AbstractTest {
 
         assertEquals("При запросе POST /rest/players/{id} корабль должен обновляться и рейтинг пересчитываться", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test12
+    @Test
+    public void updatePlayerNotExistInvalidBodyTest() throws Exception {
+        mockMvc.perform(post("/rest/players/415")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.EMPTY_NAME_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    //test13
+    @Test
+    public void updatePlayerReturnsStoredVersionTest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/rest/players/5"))
+                .andExpect(status().isOk());
+        // changed behind the cached copy of the player
+        new JdbcTemplate(context.getBean(DataSource.class)).update("update player set experience = 1000 where id = 5");
+
+        String contentAsString = mockMvc.perform(post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Новое\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
+
+        assertEquals("Ответ должен содержать опыт из базы, а не из кэша.", 1000, (int) actual.experience);
+    }
+}
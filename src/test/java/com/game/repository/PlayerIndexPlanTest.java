@@ -0,0 +1,183 @@
+package com.game.repository;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.service.PlayerService;
+import com.game.service.PlayerServiceImpl;
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Runs the versioned migrations on H2 and checks that the SQL Hibernate generates for the player filters
+ * and sorts is served by an index.
+ */
+public class PlayerIndexPlanTest {
+
+    private static final Pattern INDEX_LOOKUP = Pattern.compile("/\\* PUBLIC\\.\\w+: ");
+    private static final List<String> statements = new ArrayList<>();
+
+    private static LocalContainerEntityManagerFactoryBean factoryBean;
+    private static EntityManagerFactory entityManagerFactory;
+    private static JdbcTemplate jdbcTemplate;
+
+    private final PlayerService playerService = new PlayerServiceImpl();
+
+    @BeforeClass
+    public static void migrate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:plan;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        seed();
+
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.criteria.literal_handling_mode", "inline");
+        properties.put("hibernate.session_factory.statement_inspector", (StatementInspector) sql -> {
+            statements.add(sql);
+            return sql;
+        });
+
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.game.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaProperties(properties);
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+    }
+
+    @AfterClass
+    public static void close() {
+        factoryBean.destroy();
+    }
+
+    @Test
+    public void filterByRace() {
+        assertIndexed(playerService.selectByRace(Race.ELF), PlayerOrder.ID);
+    }
+
+    @Test
+    public void filterByProfession() {
+        assertIndexed(playerService.selectByProfession(Profession.DRUID), PlayerOrder.ID);
+    }
+
+    @Test
+    public void filterByRaceAndProfession() {
+        assertIndexed(playerService.selectByRace(Race.ORC).and(playerService.selectByProfession(Profession.WARRIOR)), PlayerOrder.ID);
+    }
+
+    @Test
+    public void filterByRaceAndBanned() {
+        assertIndexed(playerService.selectByRace(Race.DWARF).and(playerService.selectByBan(true)), PlayerOrder.ID);
+    }
+
+    @Test
+    public void filterByBannedAndLevel() {
+        assertIndexed(playerService.selectByBan(false).and(playerService.selectByLevel(40, 50)), PlayerOrder.ID);
+    }
+
+    @Test
+    public void filterByLevel() {
+        assertIndexed(playerService.selectByLevel(10, 20), PlayerOrder.LEVEL);
+    }
+
+    @Test
+    public void filterByExperience() {
+        assertIndexed(playerService.selectByExp(100000, 200000), PlayerOrder.EXPERIENCE);
+    }
+
+    @Test
+    public void filterByBirthday() {
+        assertIndexed(playerService.selectByDate(1104530400000L, 1136066400000L), PlayerOrder.BIRTHDAY);
+    }
+
+    @Test
+    public void filterByProfessionAndExperience() {
+        assertIndexed(playerService.selectByProfession(Profession.NAZGUL).and(playerService.selectByExp(null, 5000)), PlayerOrder.ID);
+    }
+
+    @Test
+    public void sortOnly() {
+        for (PlayerOrder order : PlayerOrder.values()) {
+            assertIndexed(null, order);
+        }
+    }
+
+    private void assertIndexed(Specification<Player> spec, PlayerOrder order) {
+        String sql = generatedSql(spec, order);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        assertFalse("Table scan for " + sql + "\n" + plan, plan.contains("tableScan"));
+        if (spec == null) {
+            // nothing to look up, but the index has to deliver the order so no sort is needed
+            assertTrue("Sort not served by an index for " + sql + "\n" + plan, plan.contains("index sorted"));
+        } else {
+            // "/* PUBLIC.IDX_...: COLUMN = ... */" is an index lookup, a bare "/* PUBLIC.PRIMARY_KEY_8 */" is a full scan
+            assertTrue("Filter not served by an index for " + sql + "\n" + plan, INDEX_LOOKUP.matcher(plan).find());
+        }
+    }
+
+    private String generatedSql(Specification<Player> spec, PlayerOrder order) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Player> query = criteriaBuilder.createQuery(Player.class);
+            Root<Player> root = query.from(Player.class);
+            Predicate predicate = spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+            query.orderBy(toOrders(Sort.by(order.getFieldName()), root, criteriaBuilder));
+
+            statements.clear();
+            entityManager.createQuery(query).setMaxResults(20).getResultList();
+            return statements.get(0).replace("limit ?", "limit 20");
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static void seed() {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int experience = random.nextInt(10_000_001);
+            int level = PlayerServiceImpl.calcLevel(experience);
+            rows.add(new Object[]{"Игрок" + i, "Титул" + i,
+                    Race.values()[random.nextInt(Race.values().length)].name(),
+                    Profession.values()[random.nextInt(Profession.values().length)].name(),
+                    java.sql.Date.valueOf((2000 + random.nextInt(20)) + "-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10)),
+                    random.nextInt(10) == 0, experience, level, PlayerServiceImpl.calcuntilNextLevel(level, experience)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE");
+    }
+}
@@ -12,9 +12,19 @@ CREATE TABLE player
     experience     INT(10)     NULL,
     level          INT(3)      NULL,
     untilNextLevel INT(10)     NULL,
+    version        BIGINT      NOT NULL DEFAULT 0,
+    updated        BIGINT      NULL,
     PRIMARY KEY (id)
 );
 
+CREATE INDEX idx_player_race_profession ON player (race, profession, banned);
+CREATE INDEX idx_player_profession_banned ON player (profession, banned);
+CREATE INDEX idx_player_level ON player (level, id);
+CREATE INDEX idx_player_experience ON player (experience, id);
+CREATE INDEX idx_player_birthday ON player (birthday, id);
+CREATE INDEX idx_player_name ON player (name, id);
+CREATE INDEX idx_player_banned_level ON player (banned, level);
+
 INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel)
 VALUES ('Ниус', 'Приходящий Без Шума', 'HOBBIT', 'ROGUE', '2010-10-12', false, 58347, 33, 1153)
      , ('Никрашш', 'НайтВульф', 'ORC', 'WARLOCK', '2010-02-14', false, 174403, 58, 2597)